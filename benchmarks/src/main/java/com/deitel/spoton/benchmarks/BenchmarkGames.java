@@ -0,0 +1,171 @@
+// BenchmarkGames.java
+// Creates games and plays them for the benchmarks
+package com.deitel.spoton.benchmarks;
+
+import java.util.Random;
+
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.InputRecorder;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+
+final class BenchmarkGames {
+    static final int FIELD_WIDTH = 1280; // a typical landscape phone
+    static final int FIELD_HEIGHT = 720;
+    static final long SEED = 42; // every run plays the same games
+    static final int FRAME = 16; // ms per frame in recorded games
+
+    private BenchmarkGames() {
+    } // end BenchmarkGames constructor
+
+    // creates a seeded game on a FIELD_WIDTH x FIELD_HEIGHT field
+    static SpotOnGame newGame() {
+        SpotOnGame game = new SpotOnGame(new GameRandom(SEED), new Events());
+        game.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        return game;
+    } // end method newGame
+
+    // time at which every spot of a level started at start has been added
+    static long levelSpawned(long start) {
+        return start + SpotOnGame.INITIAL_SPOTS * SpotOnGame.SPOT_DELAY;
+    } // end method levelSpawned
+
+    // returns the handle of the spot showing number, or SpotStore.NONE if
+    // it is not in play
+    static int findNumber(SpotOnGame game, int number) {
+        SpotStore spots = game.getSpots();
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot)) {
+            if (spots.getNumber(slot) == number)
+                return spots.handle(slot);
+        } // end for
+
+        return SpotStore.NONE;
+    } // end method findNumber
+
+    // returns the handle of a spot other than the expected one, or
+    // SpotStore.NONE if there is none
+    static int findWrongSpot(SpotOnGame game) {
+        SpotStore spots = game.getSpots();
+        for (int slot = spots.last(); slot != SpotStore.NONE;
+                slot = spots.previous(slot)) {
+            if (spots.getNumber(slot) != game.getNumOn())
+                return spots.handle(slot);
+        } // end for
+
+        return SpotStore.NONE;
+    } // end method findWrongSpot
+
+    // starts a game at time 0 and plays perfectly until only the last
+    // spot of level is left; returns the current time
+    static long playUntilLastSpot(SpotOnGame game, int level) {
+        long now = 0;
+        game.reset(now);
+
+        while (true) {
+            now = levelSpawned(now);
+            game.advanceTo(now);
+
+            while (game.getNumOn() < game.getNumGoal())
+                game.touchSpot(findNumber(game, game.getNumOn()), now);
+
+            if (game.getLevel() == level)
+                return now;
+
+            game.touchSpot(findNumber(game, game.getNumOn()), now);
+        } // end while
+    } // end method playUntilLastSpot
+
+    // plays a whole game seeded with seed the way a fairly good player
+    // would, touching the expected spot about twice a second with the odd
+    // wrong or missed touch, and returns the recording of its inputs
+    static byte[] recordGame(long seed) {
+        Random player = new Random(seed); // chooses the touches
+        SpotOnGame game = new SpotOnGame(new GameRandom(), new Events());
+        InputRecorder recorder = new InputRecorder();
+
+        long now = 0;
+        recorder.recordFieldSize(now, FIELD_WIDTH, FIELD_HEIGHT);
+        game.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        recorder.recordReset(now, seed);
+        game.reset(now, seed);
+        game.advanceTo(now);
+
+        while (!game.isGameOver()) {
+            now += FRAME;
+            game.advanceTo(now);
+            if (game.isGameOver() || player.nextInt(30) != 0)
+                continue; // no touch this frame
+
+            // touch the expected spot's center, another spot or nothing
+            SpotStore spots = game.getSpots();
+            int choice = player.nextInt(10);
+            int spot = choice < 8 ? findNumber(game, game.getNumOn()) :
+                    choice < 9 ? findWrongSpot(game) : SpotStore.NONE;
+            float x = player.nextInt(FIELD_WIDTH);
+            float y = player.nextInt(FIELD_HEIGHT);
+            if (spot != SpotStore.NONE) {
+                int slot = spots.slot(spot);
+                float t = spots.progress(slot, now);
+                x = spots.x(slot, t) + SpotOnGame.SPOT_DIAMETER / 2;
+                y = spots.y(slot, t) + SpotOnGame.SPOT_DIAMETER / 2;
+            } // end if
+
+            // exactly what SpotOnView.onTouchEvent does
+            spot = game.findSpot(x, y, now);
+            recorder.recordTouch(now, x, y, spot != SpotStore.NONE);
+            if (spot != SpotStore.NONE)
+                game.touchSpot(spot, now);
+            else
+                game.touchBackground();
+        } // end while
+
+        recorder.recordGameOver(now, game);
+        return recorder.toByteArray();
+    } // end method recordGame
+
+    // counts the game's events so that none of them is dead code
+    static final class Events implements SpotOnGame.Listener {
+        int count;
+
+        public void onLevelStarted(int level) {
+            ++count;
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+            ++count;
+        } // end method onLevelCompleted
+
+        public void onSpotAdded(int spot) {
+            ++count;
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+            ++count;
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+            ++count;
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+            ++count;
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+            ++count;
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+            ++count;
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+            ++count;
+        } // end method onGameWon
+
+        public void onGameLost() {
+            ++count;
+        } // end method onGameLost
+    } // end class Events
+} // end class BenchmarkGames
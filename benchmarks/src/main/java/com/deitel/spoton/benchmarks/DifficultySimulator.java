@@ -0,0 +1,357 @@
+// DifficultySimulator.java
+// Plays millions of games with modelled players to measure how hard the
+// game's settings make it
+package com.deitel.spoton.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.GameSettings;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+
+// Usage: java -cp target/benchmarks.jar \
+//            com.deitel.spoton.benchmarks.DifficultySimulator [options]
+//   -games n         games per combination (default 1000000)
+//   -animation ms,.. spot animation durations
+//   -delay ms,..     delays between added spots
+//   -spots n,..      spots per level
+//   -limits a/b/c/d,.. time limits of the four levels in seconds
+//   -reaction ms,..  median reaction times of the players (default 1500)
+//   -spread s        log-normal spread of reaction times (default 0.35)
+//   -aim px          spread of touches around a spot's center (default 25)
+//   -lapse p         chance of touching the wrong number (default 0.05)
+//   -threads n       worker threads (default: every core)
+//   -seed n          makes the whole run repeatable (default 42)
+// Every combination of the listed values is simulated in turn. Games are
+// split into fixed-size batches, each seeded from its first game, that a
+// fork/join pool plays independently and merges at the end, so results do
+// not depend on the thread count and throughput grows with the cores.
+public final class DifficultySimulator {
+    private static final int BATCH_GAMES = 4096; // games per forked task
+    private static final int MAX_TIME_LEFT = 255; // histogram range, s
+
+    private DifficultySimulator() {
+    } // end DifficultySimulator constructor
+
+    // a modelled player: how long it takes to find and touch the next
+    // number, how precisely it touches and how often it picks the wrong one
+    static final class Player {
+        final double reactionMedian; // ms
+        final double reactionSpread; // sigma of the reaction time's log
+        final double aimError; // px
+        final double lapseRate; // probability of touching a wrong spot
+
+        Player(double reactionMedian, double reactionSpread, double aimError,
+                double lapseRate) {
+            this.reactionMedian = reactionMedian;
+            this.reactionSpread = reactionSpread;
+            this.aimError = aimError;
+            this.lapseRate = lapseRate;
+        } // end Player constructor
+
+        // ms from the moment the player starts looking to its touch
+        long reactionTime(SplittableRandom random) {
+            return Math.round(reactionMedian *
+                    Math.exp(reactionSpread * gaussian(random)));
+        } // end method reactionTime
+
+        @Override
+        public String toString() {
+            return String.format("reaction=%.0fms~%.2f aim=%.0fpx lapse=%.3f",
+                    reactionMedian, reactionSpread, aimError, lapseRate);
+        } // end method toString
+    } // end class Player
+
+    // a standard normal deviate, by the Box-Muller transform
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) *
+                Math.cos(2 * Math.PI * random.nextDouble());
+    } // end method gaussian
+
+    // outcomes of a number of games, merged from the batches
+    static final class Tally {
+        long games;
+        long wins;
+        final long[] reached = new long[SpotOnGame.FINAL_LEVEL + 1];
+        final long[] completed = new long[SpotOnGame.FINAL_LEVEL + 1];
+        final long[][] timeLeft = // completions by seconds left
+                new long[SpotOnGame.FINAL_LEVEL + 1][MAX_TIME_LEFT + 1];
+
+        // adds other's games to these
+        void add(Tally other) {
+            games += other.games;
+            wins += other.wins;
+            for (int level = 1; level <= SpotOnGame.FINAL_LEVEL; ++level) {
+                reached[level] += other.reached[level];
+                completed[level] += other.completed[level];
+                for (int s = 0; s <= MAX_TIME_LEFT; ++s)
+                    timeLeft[level][s] += other.timeLeft[level][s];
+            } // end for
+        } // end method add
+
+        // seconds left that fraction of level's completions had at most
+        int timeLeftPercentile(int level, double fraction) {
+            long rank = (long) Math.ceil(fraction * completed[level]);
+            long seen = 0;
+            for (int s = 0; s <= MAX_TIME_LEFT; ++s) {
+                seen += timeLeft[level][s];
+                if (seen >= rank && seen > 0)
+                    return s;
+            } // end for
+            return 0;
+        } // end method timeLeftPercentile
+
+        // mean seconds left over level's completions
+        double meanTimeLeft(int level) {
+            long sum = 0;
+            for (int s = 0; s <= MAX_TIME_LEFT; ++s)
+                sum += s * timeLeft[level][s];
+            return completed[level] == 0 ? 0 : (double) sum / completed[level];
+        } // end method meanTimeLeft
+    } // end class Tally
+
+    // plays games first to last - 1 of a run and tallies them, forking
+    // until each task plays at most BATCH_GAMES games
+    private static final class Simulation extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameSettings settings;
+        private final Player player;
+        private final long seed; // of the whole run
+        private final long first;
+        private final long last;
+
+        Simulation(GameSettings settings, Player player, long seed,
+                long first, long last) {
+            this.settings = settings;
+            this.player = player;
+            this.seed = seed;
+            this.first = first;
+            this.last = last;
+        } // end Simulation constructor
+
+        @Override
+        protected Tally compute() {
+            if (last - first > BATCH_GAMES) {
+                // split on a batch boundary, so batches are the same
+                // however the work is divided
+                long batches = (last - first + BATCH_GAMES - 1) / BATCH_GAMES;
+                long middle = first + batches / 2 * BATCH_GAMES;
+                Simulation left =
+                        new Simulation(settings, player, seed, first, middle);
+                left.fork();
+                Tally tally = new Simulation(settings, player, seed, middle,
+                        last).compute();
+                tally.add(left.join());
+                return tally;
+            } // end if
+
+            return new Batch(settings, player, seed + first).play(last - first);
+        } // end method compute
+    } // end class Simulation
+
+    // plays games one after another on a single game instance, tallying
+    // them through the game's events
+    private static final class Batch implements SpotOnGame.Listener {
+        private final Player player;
+        private final SplittableRandom random; // the player's and the seeds
+        private final SpotOnGame game;
+        private final Tally tally = new Tally();
+
+        Batch(GameSettings settings, Player player, long seed) {
+            this.player = player;
+            random = new SplittableRandom(seed);
+            game = new SpotOnGame(new GameRandom(), this, settings);
+            game.setFieldSize(BenchmarkGames.FIELD_WIDTH,
+                    BenchmarkGames.FIELD_HEIGHT);
+        } // end Batch constructor
+
+        // plays count games and returns their tally
+        Tally play(long count) {
+            for (long i = 0; i < count; ++i)
+                playGame();
+            return tally;
+        } // end method play
+
+        // plays one game from start to finish, jumping from touch to touch
+        private void playGame() {
+            long now = 0;
+            game.reset(now, random.nextLong());
+            game.advanceTo(now);
+            ++tally.games;
+
+            while (!game.isGameOver()) {
+                // wait for the next number to appear before looking for it
+                if (BenchmarkGames.findNumber(game, game.getNumOn()) ==
+                        SpotStore.NONE) {
+                    now = game.getNextEventTime();
+                    game.advanceTo(now);
+                    continue;
+                } // end if
+
+                now += player.reactionTime(random);
+                game.advanceTo(now);
+                if (!game.isGameOver())
+                    touch(now);
+            } // end while
+        } // end method playGame
+
+        // touches near the expected spot, or now and then another one
+        private void touch(long now) {
+            int spot = BenchmarkGames.findNumber(game, game.getNumOn());
+            if (random.nextDouble() < player.lapseRate) {
+                int wrong = BenchmarkGames.findWrongSpot(game);
+                if (wrong != SpotStore.NONE)
+                    spot = wrong;
+            } // end if
+
+            SpotStore spots = game.getSpots();
+            int slot = spots.slot(spot);
+            float t = spots.progress(slot, now);
+            float center = SpotOnGame.SPOT_DIAMETER / 2f;
+            float x = spots.x(slot, t) + center +
+                    (float) (player.aimError * gaussian(random));
+            float y = spots.y(slot, t) + center +
+                    (float) (player.aimError * gaussian(random));
+
+            int touched = game.findSpot(x, y, now);
+            if (touched != SpotStore.NONE)
+                game.touchSpot(touched, now);
+            else
+                game.touchBackground();
+        } // end method touch
+
+        public void onLevelStarted(int level) {
+            ++tally.reached[level];
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+            ++tally.completed[level];
+            ++tally.timeLeft[level][Math.min(MAX_TIME_LEFT,
+                    Math.max(0, game.getTimeLimit()))];
+        } // end method onLevelCompleted
+
+        public void onSpotAdded(int spot) {
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+            ++tally.wins;
+        } // end method onGameWon
+
+        public void onGameLost() {
+        } // end method onGameLost
+    } // end class Batch
+
+    public static void main(String[] args) {
+        long games = 1000000;
+        int[] animations = {GameSettings.DEFAULT.getAnimationDuration()};
+        int[] delays = {GameSettings.DEFAULT.getSpotDelay()};
+        int[] spotCounts = {GameSettings.DEFAULT.getSpotsPerLevel()};
+        List<int[]> limits = new ArrayList<int[]>();
+        int[] reactions = {1500};
+        double spread = 0.35;
+        double aim = 25;
+        double lapse = 0.05;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = BenchmarkGames.SEED;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-games": games = Long.parseLong(value); break;
+                case "-animation": animations = parseInts(value, ","); break;
+                case "-delay": delays = parseInts(value, ","); break;
+                case "-spots": spotCounts = parseInts(value, ","); break;
+                case "-limits":
+                    for (String set : value.split(","))
+                        limits.add(parseInts(set, "/"));
+                    break;
+                case "-reaction": reactions = parseInts(value, ","); break;
+                case "-spread": spread = Double.parseDouble(value); break;
+                case "-aim": aim = Double.parseDouble(value); break;
+                case "-lapse": lapse = Double.parseDouble(value); break;
+                case "-threads": threads = Integer.parseInt(value); break;
+                case "-seed": seed = Long.parseLong(value); break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option " + args[i]);
+            } // end switch
+        } // end for
+        if (args.length % 2 != 0)
+            throw new IllegalArgumentException("Missing value for " +
+                    args[args.length - 1]);
+
+        if (limits.isEmpty()) {
+            int[] defaults = new int[SpotOnGame.FINAL_LEVEL];
+            for (int level = 1; level <= SpotOnGame.FINAL_LEVEL; ++level)
+                defaults[level - 1] = GameSettings.DEFAULT.getTimeLimit(level);
+            limits.add(defaults);
+        } // end if
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        for (int animation : animations)
+            for (int delay : delays)
+                for (int spots : spotCounts)
+                    for (int[] limit : limits)
+                        for (int reaction : reactions)
+                            simulate(pool, new GameSettings(animation,
+                                    delay, spots, limit), new Player(
+                                    reaction, spread, aim, lapse),
+                                    seed, games);
+        pool.shutdown();
+    } // end method main
+
+    // plays games with settings and player on pool and prints the tally
+    private static void simulate(ForkJoinPool pool, GameSettings settings,
+            Player player, long seed, long games) {
+        long start = System.nanoTime();
+        Tally tally = pool.invoke(
+                new Simulation(settings, player, seed, 0, games));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(settings + " " + player);
+        System.out.printf("  %d games in %.2f s (%.0f games/s on %d " +
+                "threads), won %.2f%%%n", tally.games, seconds,
+                tally.games / seconds, pool.getParallelism(),
+                100.0 * tally.wins / tally.games);
+        System.out.println(
+                "  level  reached  completed  time left p10/p50/p90  mean");
+        for (int level = 1; level <= SpotOnGame.FINAL_LEVEL; ++level)
+            System.out.printf("  %5d  %6.2f%%  %8.2f%%  %9d/%d/%d  %5.1f%n",
+                    level, 100.0 * tally.reached[level] / tally.games,
+                    100.0 * tally.completed[level] /
+                            Math.max(1, tally.reached[level]),
+                    tally.timeLeftPercentile(level, 0.1),
+                    tally.timeLeftPercentile(level, 0.5),
+                    tally.timeLeftPercentile(level, 0.9),
+                    tally.meanTimeLeft(level));
+    } // end method simulate
+
+    private static int[] parseInts(String list, String separator) {
+        String[] values = list.split(separator);
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; ++i)
+            result[i] = Integer.parseInt(values[i].trim());
+        return result;
+    } // end method parseInts
+} // end class DifficultySimulator
@@ -0,0 +1,44 @@
+// FrameAdvanceBenchmark.java
+// Measures advancing the game once per display frame, as GameClock does
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameAdvanceBenchmark {
+    private static final int FRAME = 16; // ms per frame at 60 Hz
+    private static final int FRAMES = // until every spot has stopped
+            (SpotOnGame.INITIAL_SPOTS * SpotOnGame.SPOT_DELAY +
+            SpotOnGame.INITIAL_ANIMATION_DURATION) / FRAME;
+
+    private SpotOnGame game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame();
+    } // end method setUp
+
+    // plays a level's spawns, ticks and expiries without touches, one
+    // frame at a time; reported per frame
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int advanceLevel() {
+        game.reset(0);
+        for (int frame = 1; frame <= FRAMES; ++frame)
+            game.advanceTo((long) frame * FRAME);
+        return game.getMissedSpots();
+    } // end method advanceLevel
+} // end class FrameAdvanceBenchmark
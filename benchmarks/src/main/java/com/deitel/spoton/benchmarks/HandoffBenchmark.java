@@ -0,0 +1,151 @@
+// HandoffBenchmark.java
+// Measures handing frames to a LogicThread and its commands back
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.deitel.spoton.engine.CommandWriter;
+import com.deitel.spoton.engine.GameMirror;
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.LogicThread;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpscRing;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandoffBenchmark {
+    private static final int COMMAND_CAPACITY = 256; // as in SpotOnView
+    private static final long IDLE_TIMEOUT = // as SpotOnView's HOLD_TIMEOUT
+            TimeUnit.SECONDS.toNanos(2);
+    private static final long QUIT_TIMEOUT = 100; // ms
+
+    private final SpscRing ring =
+            new SpscRing(GameMirror.COMMAND_SIZE, COMMAND_CAPACITY);
+    private final GameMirror mirror = new GameMirror();
+    private final BenchmarkGames.Events events = new BenchmarkGames.Events();
+    private SpotOnGame game;
+    private CommandWriter writer;
+    private LogicThread thread;
+    private long now; // game time of the last frame sent
+    private long handoffs; // count and total of the inputs' waits
+    private long handoffNanos;
+
+    // drains the command ring into the mirror, as SpotOnView does
+    private final Runnable drain = new Runnable() {
+        public void run() {
+            for (int offset; (offset = ring.peek()) >= 0; ) {
+                mirror.apply(ring.data(), offset, events);
+                ring.release();
+            } // end for
+        } // end method run
+    }; // end Runnable
+
+    // a game run by a LogicThread, whose events go to a mirror
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new SpotOnGame(new GameRandom(BenchmarkGames.SEED),
+                new SpotOnGame.Listener() {
+                    public void onLevelStarted(int level) {
+                        writer.onLevelStarted(level);
+                    } // end method onLevelStarted
+
+                    public void onLevelCompleted(int level) {
+                        writer.onLevelCompleted(level);
+                    } // end method onLevelCompleted
+
+                    public void onSpotAdded(int spot) {
+                        writer.onSpotAdded(spot);
+                    } // end method onSpotAdded
+
+                    public void onSpotMissed(int spot) {
+                        writer.onSpotMissed(spot);
+                    } // end method onSpotMissed
+
+                    public void onSpotTouched(int spot) {
+                        writer.onSpotTouched(spot);
+                    } // end method onSpotTouched
+
+                    public void onWrongSpot(int spot) {
+                        writer.onWrongSpot(spot);
+                    } // end method onWrongSpot
+
+                    public void onBackgroundTouched() {
+                        writer.onBackgroundTouched();
+                    } // end method onBackgroundTouched
+
+                    public void onScoresChanged() {
+                        writer.onScoresChanged();
+                    } // end method onScoresChanged
+
+                    public void onGameWon() {
+                        writer.onGameWon();
+                    } // end method onGameWon
+
+                    public void onGameLost() {
+                        writer.onGameLost();
+                    } // end method onGameLost
+                }); // end SpotOnGame.Listener
+        game.setFieldSize(BenchmarkGames.FIELD_WIDTH,
+                BenchmarkGames.FIELD_HEIGHT);
+        writer = new CommandWriter(game, ring);
+        thread = new LogicThread("HandoffBenchmark", new LogicThread.Target() {
+            public void advance(long time) {
+                game.advanceTo(time);
+            } // end method advance
+
+            public void touch(float x, float y, long time, long nanos) {
+            } // end method touch
+
+            public void onIdle() {
+            } // end method onIdle
+        }, ring, drain, new LogicThread.HandoffRecorder() {
+            public void record(long nanos) {
+                handoffNanos += nanos;
+                ++handoffs;
+            } // end method record
+        }); // end LogicThread.HandoffRecorder
+        game.reset(now);
+        drain.run();
+        mirror.copyFrom(game);
+        thread.start();
+    } // end method setUp
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        thread.quit(QUIT_TIMEOUT);
+        System.out.printf("%nmean input handoff %.0f ns, " +
+                "most commands queued %d%n",
+                handoffs == 0 ? 0.0 : (double) handoffNanos / handoffs,
+                ring.getMaxDepth());
+    } // end method tearDown
+
+    // one frame sent to the logic thread and its commands applied to the
+    // mirror, waiting for the thread in between as a UI thread would
+    // before using the game; starts a new game when one ends
+    @Benchmark
+    public int frameRoundTrip() {
+        now += BenchmarkGames.FRAME;
+        thread.frame(now);
+        if (!thread.awaitIdle(IDLE_TIMEOUT))
+            throw new IllegalStateException("Logic thread is not responding");
+        drain.run();
+        if (mirror.isGameOver()) {
+            game.reset(now); // the thread is idle until the next frame
+            drain.run();
+            mirror.copyFrom(game);
+            writer.resendState();
+        } // end if
+        return mirror.getSpots().size();
+    } // end method frameRoundTrip
+} // end class HandoffBenchmark
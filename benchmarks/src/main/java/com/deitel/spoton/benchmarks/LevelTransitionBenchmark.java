@@ -0,0 +1,42 @@
+// LevelTransitionBenchmark.java
+// Measures the move from level 3 to level 4 and its new spots
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LevelTransitionBenchmark {
+    private SpotOnGame game;
+    private long now; // time when only the last spot of level 3 is left
+
+    // the transition happens once per game, so every invocation needs a
+    // game replayed to the end of level 3
+    @Setup(Level.Invocation)
+    public void setUp() {
+        if (game == null)
+            game = BenchmarkGames.newGame();
+
+        now = BenchmarkGames.playUntilLastSpot(game, 3);
+    } // end method setUp
+
+    // touches spot 30, starting level 4, then adds level 4's spots
+    @Benchmark
+    public int level3To4() {
+        game.touchSpot(BenchmarkGames.findNumber(game, game.getNumOn()), now);
+        game.advanceTo(BenchmarkGames.levelSpawned(now));
+        return game.getSpots().size();
+    } // end method level3To4
+} // end class LevelTransitionBenchmark
@@ -0,0 +1,62 @@
+// PlannerBenchmark.java
+// Measures planning a level's trajectories around many spots in play
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+import com.deitel.spoton.engine.StoreAccess;
+import com.deitel.spoton.engine.TrajectoryPlanner;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlannerBenchmark {
+    @Param({"0", "100", "300"})
+    public int spotCount; // spots in play when the level starts
+
+    private final GameRandom random = new GameRandom(BenchmarkGames.SEED);
+    private final TrajectoryPlanner planner = new TrajectoryPlanner(
+            SpotOnGame.SPOT_DIAMETER, SpotOnGame.END_SCALE);
+    private SpotStore spots;
+
+    // spots added a tenth of a second apart until the level starts, so
+    // the older ones have stopped where the player missed them
+    @Setup
+    public void setUp() {
+        int rangeX = BenchmarkGames.FIELD_WIDTH - SpotOnGame.SPOT_DIAMETER;
+        int rangeY = BenchmarkGames.FIELD_HEIGHT - SpotOnGame.SPOT_DIAMETER;
+        int duration = SpotOnGame.INITIAL_ANIMATION_DURATION;
+        spots = StoreAccess.newStore(Math.max(1, spotCount));
+        for (int i = 0; i < spotCount; ++i) {
+            long start = -100L * (spotCount - i);
+            int spot = StoreAccess.add(spots, i % SpotOnGame.MAX_NUMBER + 1,
+                    random.nextInt(rangeX), random.nextInt(rangeY),
+                    random.nextInt(rangeX), random.nextInt(rangeY), start,
+                    duration);
+            if (start + duration <= 0)
+                StoreAccess.stop(spots, spots.slot(spot));
+        } // end for
+    } // end method setUp
+
+    // plans a level of spots around those in play, as a level starts
+    @Benchmark
+    public int planLevel() {
+        planner.plan(random, spots, SpotOnGame.SPOT_DELAY,
+                SpotOnGame.INITIAL_SPOTS, SpotOnGame.SPOT_DELAY,
+                SpotOnGame.INITIAL_ANIMATION_DURATION,
+                BenchmarkGames.FIELD_WIDTH, BenchmarkGames.FIELD_HEIGHT);
+        return planner.getOverlapCount();
+    } // end method planLevel
+} // end class PlannerBenchmark
@@ -0,0 +1,65 @@
+// Replay.java
+// Replays recordings of real games on the JVM as fast as possible
+package com.deitel.spoton.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import com.deitel.spoton.engine.InputReplay;
+import com.deitel.spoton.engine.SpotOnGame;
+
+// Usage: java -cp target/benchmarks.jar com.deitel.spoton.benchmarks.Replay
+//            [-n runs] [recording...]
+// Plays each recording, a file pulled from the app's files/recordings
+// directory, runs times and reports how fast it replays and whether it
+// still plays out as recorded; with no recordings, replays a generated
+// game. Exits with status 1 if any recording diverged, so it can serve as
+// a regression check for changes to the engine.
+public final class Replay {
+    private static final int DEFAULT_RUNS = 1000;
+
+    private Replay() {
+    } // end Replay constructor
+
+    public static void main(String[] args) throws IOException {
+        int runs = DEFAULT_RUNS;
+        int first = 0;
+        if (args.length >= 2 && args[0].equals("-n")) {
+            runs = Integer.parseInt(args[1]);
+            first = 2;
+        } // end if
+
+        boolean diverged = false;
+        if (first == args.length)
+            diverged = replay("generated game",
+                    BenchmarkGames.recordGame(BenchmarkGames.SEED), runs);
+        for (int i = first; i < args.length; ++i)
+            diverged |= replay(args[i],
+                    Files.readAllBytes(Paths.get(args[i])), runs);
+
+        if (diverged)
+            System.exit(1);
+    } // end method main
+
+    // replays recording runs times and prints the results; returns true
+    // if it diverged
+    private static boolean replay(String name, byte[] recording, int runs) {
+        InputReplay replay = new InputReplay(recording);
+        SpotOnGame game = BenchmarkGames.newGame();
+
+        long start = System.nanoTime();
+        for (int run = 0; run < runs; ++run)
+            replay.run(game);
+        long nanos = (System.nanoTime() - start) / runs;
+
+        System.out.printf("%s: %d bytes, %d games (%d checked), %d touches, " +
+                "%.1f s of play in %.1f us (%.0fx), %d divergences%n", name,
+                recording.length, replay.getGameCount(),
+                replay.getGameOverCount(), replay.getTouchCount(),
+                replay.getEndTime() / 1000.0, nanos / 1000.0,
+                replay.getEndTime() * 1e6 / nanos,
+                replay.getDivergenceCount());
+        return replay.getDivergenceCount() > 0;
+    } // end method replay
+} // end class Replay
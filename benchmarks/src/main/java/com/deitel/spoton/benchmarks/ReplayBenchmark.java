@@ -0,0 +1,41 @@
+// ReplayBenchmark.java
+// Measures replaying a recorded game from start to finish
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.InputReplay;
+import com.deitel.spoton.engine.SpotOnGame;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplayBenchmark {
+    private SpotOnGame game;
+    private InputReplay replay;
+
+    // a whole game played by BenchmarkGames.recordGame
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame();
+        replay = new InputReplay(
+                BenchmarkGames.recordGame(BenchmarkGames.SEED));
+        replay.run(game);
+        if (replay.getDivergenceCount() != 0)
+            throw new IllegalStateException("The recording does not replay");
+    } // end method setUp
+
+    @Benchmark
+    public int replayGame() {
+        replay.run(game);
+        return replay.getTouchCount();
+    } // end method replayGame
+} // end class ReplayBenchmark
@@ -0,0 +1,266 @@
+// ScaleCheck.java
+// Plays long sessions of rapid touches and checks the engine stays bounded
+package com.deitel.spoton.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.GameSettings;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+
+// Usage: java -cp target/benchmarks.jar \
+//            com.deitel.spoton.benchmarks.ScaleCheck [-games n] [-taps n]
+// Plays games back to back as SpotOnView would, with a player touching
+// taps times a second, a third of the time on the expected spot and
+// otherwise on another spot or the background, and pausing and resuming
+// the game every few seconds through a snapshot. A second session plays
+// CROWDED games, whose spots outlive their level, against a player slow
+// enough that every level's spots pile up and some games are lost. Checks
+// that the engine allocates nothing per spawn or touch once warmed up,
+// that the spots in play never outnumber a level's, that the spot store
+// and event schedule do not grow, and that every resumed game picks up
+// exactly where it was paused, and that the crowded session reached those
+// bounds. Prints the totals and exits with status 1 if any check failed.
+public final class ScaleCheck {
+    private static final int DEFAULT_GAMES = 2000;
+    private static final int DEFAULT_TAPS = 20; // touches per second
+    private static final int WARM_UP_GAMES = 50; // not measured
+    private static final int PAUSE_INTERVAL = 5000; // ms of play
+    private static final int PAUSE_LENGTH = 30000; // ms paused
+
+    // spots that move for a minute, added ten times a second, with time
+    // limits a slow player does not always beat
+    private static final GameSettings CROWDED = new GameSettings(60000, 100,
+            SpotOnGame.INITIAL_SPOTS, new int[] {30, 25, 20, 15});
+    private static final int CROWDED_TAPS = 2; // touches per second
+
+    // most bytes allocated on average per spawn or touch; the engine's
+    // steady state allocates nothing, so this only allows for the JVM's
+    // own bookkeeping
+    private static final double MAX_BYTES_PER_INPUT = 1.0;
+
+    private ScaleCheck() {
+    } // end ScaleCheck constructor
+
+    public static void main(String[] args) {
+        int games = DEFAULT_GAMES;
+        int taps = DEFAULT_TAPS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-games"))
+                games = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-taps"))
+                taps = Integer.parseInt(args[i + 1]);
+            else
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+        } // end for
+
+        Session session = new Session(GameSettings.DEFAULT, taps, false);
+        Session crowded = new Session(CROWDED, CROWDED_TAPS, true);
+        boolean passed = true;
+        for (Session each : new Session[] {session, crowded}) {
+            for (int game = 0; game < WARM_UP_GAMES; ++game)
+                each.play(game);
+            each.startMeasuring();
+            for (int game = 0; game < games; ++game)
+                each.play(WARM_UP_GAMES + game);
+
+            System.out.println(each);
+            passed &= each.passed();
+        } // end for
+
+        if (!passed)
+            System.exit(1);
+    } // end method main
+
+    // a run of games on one game object, as in one SpotOnView
+    private static final class Session implements SpotOnGame.Listener {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+        private final long thread = Thread.currentThread().getId();
+        private final GameSettings settings;
+        private final SpotOnGame game;
+        private final Random player = new Random(BenchmarkGames.SEED);
+        private final int tapInterval; // frames between touches
+        private final int capacity; // spot store's capacity at the start
+        private final boolean crowded; // must reach its bounds to pass
+
+        // most events pending at once: a spawn, a tick and an expiry for
+        // every spot added in the last animation, touched or not
+        private final int maxPendingEvents;
+
+        private boolean measuring;
+        private long allocated; // bytes allocated while playing, measured
+        private long spawns; // spots added while measured
+        private long touches; // touches made while measured
+        private long pauses; // snapshots saved and restored
+        private long frames;
+        private int mostSpots; // most spots in play at once
+        private int mostEvents; // most events pending at once
+        private int resumeMismatches; // resumed games that differ
+        private int games;
+        private int wins;
+
+        Session(GameSettings settings, int taps, boolean crowded) {
+            this.settings = settings;
+            this.crowded = crowded;
+            game = new SpotOnGame(new GameRandom(), this, settings);
+            tapInterval = Math.max(1, 1000 / (taps * BenchmarkGames.FRAME));
+            maxPendingEvents = 2 + Math.min(settings.getAnimationDuration() /
+                    settings.getSpotDelay() + 1,
+                    SpotOnGame.FINAL_LEVEL * settings.getSpotsPerLevel());
+            game.setFieldSize(BenchmarkGames.FIELD_WIDTH,
+                    BenchmarkGames.FIELD_HEIGHT);
+            capacity = game.getSpots().capacity();
+        } // end Session constructor
+
+        void startMeasuring() {
+            measuring = true;
+        } // end method startMeasuring
+
+        // plays a whole game seeded with seed
+        void play(long seed) {
+            long now = 0;
+            long start = threads.getThreadAllocatedBytes(thread);
+            game.reset(now, seed);
+            long nextPause = now + PAUSE_INTERVAL;
+
+            while (!game.isGameOver()) {
+                now += BenchmarkGames.FRAME;
+                game.advanceTo(now);
+                if (measuring)
+                    ++frames;
+                mostSpots = Math.max(mostSpots, game.getSpots().size());
+                mostEvents = Math.max(mostEvents,
+                        game.getPendingEventCount());
+
+                if (!game.isGameOver() && frames % tapInterval == 0)
+                    touch(now);
+
+                if (now >= nextPause && !game.isGameOver()) {
+                    // leave out the snapshots' own arrays
+                    allocated += threads.getThreadAllocatedBytes(thread) -
+                            start;
+                    now = pause(now);
+                    nextPause = now + PAUSE_INTERVAL;
+                    start = threads.getThreadAllocatedBytes(thread);
+                } // end if
+            } // end while
+
+            allocated += threads.getThreadAllocatedBytes(thread) - start;
+            if (measuring)
+                ++games;
+            if (game.isGameWon() && measuring)
+                ++wins;
+            if (!measuring)
+                allocated = 0;
+        } // end method play
+
+        // touches the expected spot, another spot or the background the
+        // way SpotOnView.onTouchEvent does
+        private void touch(long now) {
+            SpotStore spots = game.getSpots();
+            int choice = player.nextInt(10);
+            int spot = choice < 3 ?
+                    BenchmarkGames.findNumber(game, game.getNumOn()) :
+                    choice < 7 ? BenchmarkGames.findWrongSpot(game) :
+                    SpotStore.NONE;
+            float x = player.nextInt(BenchmarkGames.FIELD_WIDTH);
+            float y = player.nextInt(BenchmarkGames.FIELD_HEIGHT);
+            if (spot != SpotStore.NONE) {
+                int slot = spots.slot(spot);
+                float t = spots.progress(slot, now);
+                x = spots.x(slot, t) + SpotOnGame.SPOT_DIAMETER / 2;
+                y = spots.y(slot, t) + SpotOnGame.SPOT_DIAMETER / 2;
+            } // end if
+
+            spot = game.findSpot(x, y, now);
+            if (spot != SpotStore.NONE)
+                game.touchSpot(spot, now);
+            else
+                game.touchBackground();
+            if (measuring)
+                ++touches;
+        } // end method touch
+
+        // saves the game, as SpotOnView.pause does, and restores it after
+        // PAUSE_LENGTH, as resume does; returns the time it resumed
+        private long pause(long now) {
+            byte[] saved = game.saveState(now);
+            long resumed = now + PAUSE_LENGTH;
+            game.restoreState(saved, resumed);
+            if (!Arrays.equals(saved, game.saveState(resumed)))
+                ++resumeMismatches;
+            if (measuring)
+                ++pauses;
+            return resumed;
+        } // end method pause
+
+        // bytes allocated per measured spawn or touch
+        double getBytesPerInput() {
+            long inputs = spawns + touches;
+            return inputs == 0 ? 0 : (double) allocated / inputs;
+        } // end method getBytesPerInput
+
+        // whether every check passed; a crowded session must also have
+        // filled the field with a level's spots and lost some games
+        boolean passed() {
+            return getBytesPerInput() <= MAX_BYTES_PER_INPUT &&
+                    mostSpots <= settings.getSpotsPerLevel() &&
+                    game.getSpots().capacity() == capacity &&
+                    mostEvents <= maxPendingEvents &&
+                    resumeMismatches == 0 &&
+                    (!crowded || mostSpots == settings.getSpotsPerLevel() &&
+                    wins > 0 && wins < games);
+        } // end method passed
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d frames, %d spawns, %d touches, " +
+                    "%d pauses, %d of %d won: %.3f bytes per spawn or touch " +
+                    "(at most %.1f), at most %d spots in play (%d), spot " +
+                    "store capacity %d (%d), at most %d events pending (%d), " +
+                    "%d resumed games differ: %s", settings, frames, spawns,
+                    touches, pauses, wins, games, getBytesPerInput(),
+                    MAX_BYTES_PER_INPUT, mostSpots,
+                    settings.getSpotsPerLevel(), game.getSpots().capacity(),
+                    capacity, mostEvents, maxPendingEvents, resumeMismatches,
+                    passed() ? "passed" : "FAILED");
+        } // end method toString
+
+        public void onSpotAdded(int spot) {
+            if (measuring)
+                ++spawns;
+        } // end method onSpotAdded
+
+        public void onLevelStarted(int level) {
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+        } // end method onLevelCompleted
+
+        public void onSpotMissed(int spot) {
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+        } // end method onGameWon
+
+        public void onGameLost() {
+        } // end method onGameLost
+    } // end class Session
+} // end class ScaleCheck
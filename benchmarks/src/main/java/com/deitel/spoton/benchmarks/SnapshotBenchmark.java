@@ -0,0 +1,49 @@
+// SnapshotBenchmark.java
+// Measures saving and restoring a game in the middle of a level
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotBenchmark {
+    private SpotOnGame game;
+    private long now; // time of the snapshot
+    private byte[] snapshot;
+
+    // a level 3 game with all its spots in play and half of them touched
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame();
+        now = BenchmarkGames.playUntilLastSpot(game, 2);
+        game.touchSpot(BenchmarkGames.findNumber(game, game.getNumOn()), now);
+        now = BenchmarkGames.levelSpawned(now);
+        game.advanceTo(now);
+        for (int i = 0; i < SpotOnGame.INITIAL_SPOTS / 2; ++i)
+            game.touchSpot(
+                    BenchmarkGames.findNumber(game, game.getNumOn()), now);
+        snapshot = game.saveState(now);
+    } // end method setUp
+
+    @Benchmark
+    public byte[] save() {
+        return game.saveState(now);
+    } // end method save
+
+    @Benchmark
+    public int restore() {
+        game.restoreState(snapshot, now);
+        return game.getSpots().size();
+    } // end method restore
+} // end class SnapshotBenchmark
@@ -0,0 +1,37 @@
+// SpawnBenchmark.java
+// Measures adding spots the way SpotOnView's addNewSpot did
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpawnBenchmark {
+    private SpotOnGame game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame();
+    } // end method setUp
+
+    // starts a game and adds its first level's spots; reported per spot
+    @Benchmark
+    @OperationsPerInvocation(SpotOnGame.INITIAL_SPOTS)
+    public int spawnLevel() {
+        game.reset(0);
+        game.advanceTo(BenchmarkGames.levelSpawned(0));
+        return game.getSpots().size();
+    } // end method spawnLevel
+} // end class SpawnBenchmark
@@ -0,0 +1,50 @@
+// SpotQueueBenchmark.java
+// Measures the ConcurrentLinkedQueue operations SpotOnView does per spot
+package com.deitel.spoton.benchmarks;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpotQueueBenchmark {
+    @Param({"10", "100", "1000"})
+    public int spotCount; // spots on the screen
+
+    private Queue<Object> spots; // stands in for the queue of ImageViews
+    private Object newest; // the spot added last
+
+    @Setup
+    public void setUp() {
+        spots = new ConcurrentLinkedQueue<Object>();
+        for (int i = 0; i < spotCount; ++i) {
+            newest = new Object();
+            spots.add(newest);
+        } // end for
+    } // end method setUp
+
+    // the membership check onAnimationEnd made for an untouched spot
+    @Benchmark
+    public boolean contains() {
+        return spots.contains(newest);
+    } // end method contains
+
+    // removing a touched spot, then adding a new spot in its place
+    @Benchmark
+    public boolean removeAndAdd() {
+        Object oldest = spots.peek();
+        spots.remove(oldest);
+        return spots.add(oldest);
+    } // end method removeAndAdd
+} // end class SpotQueueBenchmark
@@ -0,0 +1,48 @@
+// SpotStoreBenchmark.java
+// Measures the SpotStore operations that replaced the spot queue's
+package com.deitel.spoton.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotStore;
+import com.deitel.spoton.engine.StoreAccess;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpotStoreBenchmark {
+    @Param({"10", "100", "1000"})
+    public int spotCount; // spots on the screen
+
+    private SpotStore spots;
+    private int newest; // handle of the spot added last
+
+    @Setup
+    public void setUp() {
+        spots = StoreAccess.newStore(spotCount);
+        for (int i = 0; i < spotCount; ++i)
+            newest = StoreAccess.add(spots, i);
+    } // end method setUp
+
+    // the check SpotQueueBenchmark.contains makes, by handle
+    @Benchmark
+    public boolean contains() {
+        return spots.contains(newest);
+    } // end method contains
+
+    // removing the oldest spot, then adding a new spot in its place
+    @Benchmark
+    public int removeAndAdd() {
+        StoreAccess.remove(spots, spots.first());
+        return StoreAccess.add(spots, 0);
+    } // end method removeAndAdd
+} // end class SpotStoreBenchmark
@@ -0,0 +1,112 @@
+// TouchBenchmark.java
+// Measures correct and incorrect touches on a level's spots and finding
+// the spot under a touch among many in play
+package com.deitel.spoton.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+import com.deitel.spoton.engine.StoreAccess;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TouchBenchmark {
+    private SpotOnGame game;
+    private long now; // time when every spot of level 1 is in play
+    private int expected; // handle of the spot showing numOn
+    private int wrong; // handle of a spot showing another number
+
+    // a fresh level 1 with all of its spots in play; a correct touch
+    // removes a spot, so this runs before every invocation
+    @Setup(Level.Invocation)
+    public void setUp() {
+        if (game == null)
+            game = BenchmarkGames.newGame();
+
+        game.reset(0);
+        now = BenchmarkGames.levelSpawned(0);
+        game.advanceTo(now);
+        expected = BenchmarkGames.findNumber(game, game.getNumOn());
+        wrong = BenchmarkGames.findWrongSpot(game);
+    } // end method setUp
+
+    // touching the expected numeral
+    @Benchmark
+    public boolean touchCorrect() {
+        return game.touchSpot(expected, now);
+    } // end method touchCorrect
+
+    // touching a numeral out of order, which plays the uh-oh sound
+    @Benchmark
+    public boolean touchWrong() {
+        return game.touchSpot(wrong, now);
+    } // end method touchWrong
+
+    // a game with spotCount spots moving across the field, indexed for
+    // hit tests at time 0 as a frame does, and the touches to look up
+    @State(Scope.Thread)
+    public static class Crowd {
+        @Param({"10", "100", "300", "1000"})
+        public int spotCount; // spots in play
+
+        private static final int TOUCHES = 1024; // a power of two
+        private static final int FRAME = 16; // ms per frame at 60 Hz
+        final SpotOnGame game = BenchmarkGames.newGame();
+        final float[] touchX = new float[TOUCHES];
+        final float[] touchY = new float[TOUCHES];
+        int touch; // index of the next touch
+        long frame; // game time of the next prepareHitTests
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(BenchmarkGames.SEED);
+            int rangeX = BenchmarkGames.FIELD_WIDTH - SpotOnGame.SPOT_DIAMETER;
+            int rangeY =
+                    BenchmarkGames.FIELD_HEIGHT - SpotOnGame.SPOT_DIAMETER;
+            SpotStore spots = game.getSpots();
+            for (int i = 0; i < spotCount; ++i)
+                StoreAccess.add(spots, i % SpotOnGame.MAX_NUMBER + 1,
+                        random.nextInt(rangeX), random.nextInt(rangeY),
+                        random.nextInt(rangeX), random.nextInt(rangeY), 0,
+                        SpotOnGame.INITIAL_ANIMATION_DURATION);
+            game.prepareHitTests(0);
+
+            for (int i = 0; i < TOUCHES; ++i) {
+                touchX[i] = random.nextInt(BenchmarkGames.FIELD_WIDTH);
+                touchY[i] = random.nextInt(BenchmarkGames.FIELD_HEIGHT);
+            } // end for
+        } // end method setUp
+    } // end class Crowd
+
+    // finding the spot under a touch during the eight frames after the
+    // spots were indexed; costs about the same whatever the spotCount,
+    // growing only with the few spots near the touch
+    @Benchmark
+    public int findSpot(Crowd crowd) {
+        int i = crowd.touch++ & (Crowd.TOUCHES - 1);
+        return crowd.game.findSpot(crowd.touchX[i], crowd.touchY[i],
+                (i & 7) * Crowd.FRAME);
+    } // end method findSpot
+
+    // indexing the spots for hit tests, which a frame does a few times a
+    // second; times a second apart make every call rebuild the index
+    @Benchmark
+    public void prepareHitTests(Crowd crowd) {
+        crowd.frame = (crowd.frame + SpotOnGame.TICK_INTERVAL) %
+                SpotOnGame.INITIAL_ANIMATION_DURATION;
+        crowd.game.prepareHitTests(crowd.frame);
+    } // end method prepareHitTests
+} // end class TouchBenchmark
@@ -0,0 +1,34 @@
+// StoreAccess.java
+// Gives the benchmarks the engine-private SpotStore mutators
+package com.deitel.spoton.engine;
+
+public final class StoreAccess {
+    private StoreAccess() {
+    } // end StoreAccess constructor
+
+    public static SpotStore newStore(int capacity) {
+        return new SpotStore(capacity, SpotOnGame.END_SCALE);
+    } // end method newStore
+
+    // adds a stationary spot showing number and returns its handle
+    public static int add(SpotStore spots, int number) {
+        return spots.add(number, 0, 0, 0, 0, 0,
+                SpotOnGame.INITIAL_ANIMATION_DURATION);
+    } // end method add
+
+    // adds a spot moving from (x, y) to (x2, y2) from time start for
+    // duration ms and returns its handle
+    public static int add(SpotStore spots, int number, float x, float y,
+            float x2, float y2, long start, int duration) {
+        return spots.add(number, x, y, x2, y2, start, duration);
+    } // end method add
+
+    // marks the spot in slot as stopped without being touched
+    public static void stop(SpotStore spots, int slot) {
+        spots.state[slot] = SpotStore.STOPPED;
+    } // end method stop
+
+    public static void remove(SpotStore spots, int slot) {
+        spots.remove(slot);
+    } // end method remove
+} // end class StoreAccess
@@ -0,0 +1,174 @@
+// GameSnapshotTest.java
+// Checks snapshots restore exactly and corrupt ones are rejected cleanly
+package com.deitel.spoton.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GameSnapshotTest {
+    private static final int FIELD_WIDTH = 1080;
+    private static final int FIELD_HEIGHT = 1776;
+    private static final int FRAME = 16; // ms per frame
+    private static final int SPOTS_OFFSET = 92; // first spot's number
+    private static final int SPOT_SIZE = 29; // bytes per spot
+
+    @Test
+    public void restoredGamePlaysOnAsSaved() {
+        SpotOnGame game = newGame();
+        SpotOnGame copy = newGame();
+        game.reset(0, 11);
+        game.advanceTo(4500);
+        byte[] saved = game.saveState(4500);
+
+        // the copy resumes later but keeps every distance from now
+        copy.restoreState(saved, 90000);
+        assertArrayEquals(saved, copy.saveState(90000));
+        for (long ms = FRAME; ms <= 20000; ms += FRAME) {
+            game.advanceTo(4500 + ms);
+            copy.advanceTo(90000 + ms);
+        } // end for
+        assertArrayEquals(game.saveState(24500), copy.saveState(110000));
+        assertEquals(game.getSpots().size(), copy.getSpots().size());
+    } // end method restoredGamePlaysOnAsSaved
+
+    @Test
+    public void truncatedSnapshotsAreRejected() {
+        SpotOnGame game = newGame();
+        game.reset(0, 3);
+        game.advanceTo(6000);
+        byte[] saved = game.saveState(6000);
+
+        for (int length = 0; length < saved.length; ++length) {
+            try {
+                newGame().restoreState(Arrays.copyOf(saved, length), 0);
+                fail("accepted " + length + " of " + saved.length + " bytes");
+            } // end try
+            catch (IllegalArgumentException expected) {
+            } // end catch
+        } // end for
+    } // end method truncatedSnapshotsAreRejected
+
+    @Test
+    public void nonFinitePositionsAreRejected() {
+        SpotOnGame game = newGame();
+        game.reset(0, 9);
+        game.advanceTo(5500);
+        byte[] saved = game.saveState(5500);
+        int spots = game.getSpots().size();
+        assertTrue(spots > 0);
+
+        // each spot's four coordinates follow its number, and the
+        // trajectories' four each follow the plan count, as saveState
+        // lays them out
+        ByteBuffer in = ByteBuffer.wrap(saved);
+        int trajectories = SPOTS_OFFSET + spots * SPOT_SIZE + 4;
+        int plans = in.getInt(trajectories - 4);
+        int[] offsets = new int[4 * (spots + plans)];
+        for (int i = 0; i < 4 * spots; ++i)
+            offsets[i] = SPOTS_OFFSET + i / 4 * SPOT_SIZE + 4 + i % 4 * 4;
+        for (int i = 0; i < 4 * plans; ++i)
+            offsets[4 * spots + i] = trajectories + 4 * i;
+
+        for (int offset : offsets) {
+            for (float bad : new float[] {Float.NaN,
+                    Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY}) {
+                ByteBuffer corrupt = ByteBuffer.wrap(saved.clone());
+                corrupt.putFloat(offset, bad);
+                try {
+                    newGame().restoreState(corrupt.array(), 0);
+                    fail("accepted " + bad + " at " + offset);
+                } // end try
+                catch (IllegalArgumentException expected) {
+                } // end catch
+            } // end for
+        } // end for
+
+        // the same snapshot with its values intact is accepted
+        newGame().restoreState(saved, 0);
+    } // end method nonFinitePositionsAreRejected
+
+    @Test
+    public void corruptSnapshotsAreRejectedOrPlayable() {
+        Random random = new Random(5);
+        SpotOnGame game = newGame();
+        game.reset(0, 5);
+        game.advanceTo(7000);
+        byte[] saved = game.saveState(7000);
+
+        // any other exception fails the test
+        for (int trial = 0; trial < 2000; ++trial) {
+            byte[] corrupt = saved.clone();
+            int changes = 1 + random.nextInt(3);
+            for (int i = 0; i < changes; ++i)
+                corrupt[random.nextInt(corrupt.length)] =
+                        (byte) random.nextInt(256);
+
+            SpotOnGame restored = newGame();
+            try {
+                restored.restoreState(corrupt, 0);
+            } // end try
+            catch (IllegalArgumentException e) {
+                continue; // rejected
+            } // end catch
+
+            // an accepted snapshot is a game that can be played out
+            for (long now = 0; now < 300000 && !restored.isGameOver();
+                    now += 250) {
+                restored.advanceTo(now);
+                restored.prepareHitTests(now);
+                int spot = restored.findSpot(random.nextInt(FIELD_WIDTH),
+                        random.nextInt(FIELD_HEIGHT), now);
+                if (spot != SpotStore.NONE)
+                    restored.touchSpot(spot, now);
+            } // end for
+        } // end for
+    } // end method corruptSnapshotsAreRejectedOrPlayable
+
+    // a game on the default settings with a field the size of a phone's
+    private static SpotOnGame newGame() {
+        SpotOnGame game = new SpotOnGame(new GameRandom(), new Silent());
+        game.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        return game;
+    } // end method newGame
+
+    // ignores the game's events
+    private static final class Silent implements SpotOnGame.Listener {
+        public void onLevelStarted(int level) {
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+        } // end method onLevelCompleted
+
+        public void onSpotAdded(int spot) {
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+        } // end method onGameWon
+
+        public void onGameLost() {
+        } // end method onGameLost
+    } // end class Silent
+} // end class GameSnapshotTest
@@ -0,0 +1,77 @@
+// SpotGridTest.java
+// Checks grid hit tests against testing every spot in play
+package com.deitel.spoton.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SpotGridTest {
+    private static final int FIELD_WIDTH = 1280;
+    private static final int FIELD_HEIGHT = 720;
+    private static final int SPAN = 250; // ms the grid is built for
+
+    @Test
+    public void findMatchesEverySpotTested() {
+        GameRandom random = new GameRandom(7);
+        SpotStore spots = new SpotStore(16, SpotOnGame.END_SCALE);
+        SpotGrid grid = new SpotGrid(SpotOnGame.SPOT_DIAMETER);
+        int range = FIELD_WIDTH - SpotOnGame.SPOT_DIAMETER;
+        int rangeY = FIELD_HEIGHT - SpotOnGame.SPOT_DIAMETER;
+        int hits = 0;
+
+        for (int crowd = 0; crowd < 200; ++crowd) {
+            // crowds of moving and stopped spots, some removed after the
+            // grid is built as touched spots are
+            spots.clear();
+            int count = 1 + random.nextInt(400);
+            for (int i = 0; i < count; ++i) {
+                int spot = spots.add(1 + random.nextInt(SpotOnGame.MAX_NUMBER),
+                        random.nextInt(range), random.nextInt(rangeY),
+                        random.nextInt(range), random.nextInt(rangeY),
+                        -random.nextInt(20000), 1000 + random.nextInt(15000));
+                if (random.nextInt(4) == 0)
+                    spots.state[spots.slot(spot)] = SpotStore.STOPPED;
+            } // end for
+            long from = random.nextInt(2000);
+            grid.build(spots, from, from + SPAN, FIELD_WIDTH, FIELD_HEIGHT);
+            for (int i = 0; i < 10; ++i)
+                if (spots.size() > 0 && random.nextBoolean())
+                    spots.remove(spots.first());
+
+            for (int touch = 0; touch < 1000; ++touch) {
+                long now = from + random.nextInt(SPAN + 1);
+                float x = random.nextFloat() * (FIELD_WIDTH + 20) - 10;
+                float y = random.nextFloat() * (FIELD_HEIGHT + 20) - 10;
+                int expected = 1 + random.nextInt(SpotOnGame.MAX_NUMBER);
+                int want = find(spots, x, y, expected, now);
+                int found = grid.find(spots, x, y, expected, now);
+                assertEquals(want, found);
+                if (found != SpotStore.NONE)
+                    ++hits;
+            } // end for
+        } // end for
+
+        assertTrue("too few touches hit a spot", hits > 10000);
+    } // end method findMatchesEverySpotTested
+
+    // the first spot at (x, y) showing expected, or else the topmost spot
+    // there, testing every spot in play
+    private static int find(SpotStore spots, float x, float y, int expected,
+            long now) {
+        float half = SpotOnGame.SPOT_DIAMETER / 2f;
+        int found = SpotStore.NONE;
+        for (int i = spots.first(); i != SpotStore.NONE; i = spots.next(i)) {
+            float t = spots.progress(i, now);
+            float radius = half * spots.scale(t);
+            if (Math.abs(x - spots.x(i, t) - half) <= radius &&
+                    Math.abs(y - spots.y(i, t) - half) <= radius) {
+                if (spots.number[i] == expected)
+                    return i;
+                found = i;
+            } // end if
+        } // end for
+        return found;
+    } // end method find
+} // end class SpotGridTest
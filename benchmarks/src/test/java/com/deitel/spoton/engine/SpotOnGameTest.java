@@ -0,0 +1,343 @@
+// SpotOnGameTest.java
+// Plays crowded games through reset, touch, pause and resume
+package com.deitel.spoton.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+// Drives the engine and SpotOnView's SpotViews the way SpotOnView does,
+// on settings that let every level's spots pile up: long animations,
+// spots added ten times a second and a player who mostly touches the
+// wrong spot or the background. The views are placed in a model of the
+// layout, so a spot that leaves play without being reported, or a view
+// never returned to the pool, shows up as more children than spots.
+public class SpotOnGameTest {
+    private static final int FIELD_WIDTH = 1080;
+    private static final int FIELD_HEIGHT = 1776;
+    private static final int FRAME = 16; // ms per frame
+    private static final int GAMES = 200;
+    private static final int TAP_INTERVAL = 500; // ms between touches
+    private static final int PAUSE_INTERVAL = 5000; // ms of play
+    private static final int PAUSE_LENGTH = 30000; // ms paused
+    private static final int WARM_UP_GAMES = 20; // before measuring
+    private static final int POOL_CAPACITY = 2 * SpotOnGame.INITIAL_SPOTS;
+
+    // spots outlive a whole level, and the slow player loses some games
+    private static final GameSettings CROWDED = new GameSettings(60000, 100,
+            SpotOnGame.INITIAL_SPOTS, new int[] {30, 25, 20, 15});
+
+    // most events pending at once: a spawn, a tick and an expiry for every
+    // spot added in the last animation, touched or not
+    private static final int MAX_PENDING_EVENTS = 2 + Math.min(
+            CROWDED.getAnimationDuration() / CROWDED.getSpotDelay() + 1,
+            SpotOnGame.FINAL_LEVEL * CROWDED.getSpotsPerLevel());
+
+    @Test
+    public void crowdedGamesStayBounded() {
+        Screen screen = new Screen();
+        SpotOnGame game = screen.game;
+        int capacity = game.getSpots().capacity();
+        Random player = new Random(1);
+        int mostSpots = 0;
+        int wins = 0;
+
+        for (int seed = 0; seed < GAMES; ++seed) {
+            long now = 0;
+            screen.views.hideAll(); // as resetGame does
+            screen.now = now;
+            game.reset(now, seed);
+            long nextTap = now + TAP_INTERVAL;
+            long nextPause = now + PAUSE_INTERVAL;
+
+            while (!game.isGameOver()) {
+                now += FRAME;
+                screen.now = now;
+                game.advanceTo(now);
+                game.prepareHitTests(now);
+                if (now >= nextTap && !game.isGameOver()) {
+                    touch(game, player, now);
+                    nextTap = now + TAP_INTERVAL;
+                } // end if
+                if (now >= nextPause && !game.isGameOver()) {
+                    now = pause(screen, now);
+                    nextPause = now + PAUSE_INTERVAL;
+                } // end if
+
+                SpotStore spots = game.getSpots();
+                mostSpots = Math.max(mostSpots, spots.size());
+                assertTrue(spots.size() <= CROWDED.getSpotsPerLevel());
+                assertEquals(capacity, spots.capacity());
+                assertTrue(game.getPendingEventCount() <= MAX_PENDING_EVENTS);
+                screen.check();
+            } // end while
+
+            if (game.isGameWon())
+                ++wins;
+        } // end for
+
+        // the bounds were reached, not just respected, and the pool
+        // absorbed every view hidden
+        assertEquals(CROWDED.getSpotsPerLevel(), mostSpots);
+        assertTrue("no game was won", wins > 0);
+        assertTrue("no game was lost", wins < GAMES);
+        assertEquals(0, screen.views.getDiscards());
+        assertTrue(screen.views.getMisses() <= POOL_CAPACITY);
+    } // end method crowdedGamesStayBounded
+
+    @Test
+    public void spawnsAndTouchesAllocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Screen screen = new Screen();
+        SpotOnGame game = screen.game;
+        Random player = new Random(2);
+        long spawnBytes = 0; // allocated by frames that added spots
+        long touchBytes = 0; // allocated by touches
+        int spawns = 0;
+        int touches = 0;
+        int created = 0; // views created before measuring
+
+        for (int seed = 0; seed < WARM_UP_GAMES + GAMES; ++seed) {
+            boolean measuring = seed >= WARM_UP_GAMES;
+            if (seed == WARM_UP_GAMES)
+                created = screen.views.getMisses();
+            long now = 0;
+            screen.views.hideAll();
+            screen.now = now;
+            game.reset(now, seed);
+            long nextTap = now + TAP_INTERVAL;
+
+            while (!game.isGameOver()) {
+                now += FRAME;
+                screen.now = now;
+                int added = screen.added;
+                long start = threads.getThreadAllocatedBytes(thread);
+                game.advanceTo(now);
+                game.prepareHitTests(now);
+                long bytes = threads.getThreadAllocatedBytes(thread) - start;
+                if (measuring && screen.added > added) {
+                    spawnBytes += bytes;
+                    spawns += screen.added - added;
+                } // end if
+
+                if (now >= nextTap && !game.isGameOver()) {
+                    start = threads.getThreadAllocatedBytes(thread);
+                    touch(game, player, now);
+                    bytes = threads.getThreadAllocatedBytes(thread) - start;
+                    if (measuring) {
+                        touchBytes += bytes;
+                        ++touches;
+                    } // end if
+                    nextTap = now + TAP_INTERVAL;
+                } // end if
+            } // end while
+        } // end for
+
+        // under a byte each: nothing, allowing for the bean's own
+        // bookkeeping; every view came from the pool
+        assertTrue(spawns + " spawns, " + touches + " touches",
+                spawns > 5000 && touches > 5000);
+        assertTrue(spawnBytes + " bytes for " + spawns + " spawns",
+                spawnBytes < spawns);
+        assertTrue(touchBytes + " bytes for " + touches + " touches",
+                touchBytes < touches);
+        assertEquals(created, screen.views.getMisses());
+    } // end method spawnsAndTouchesAllocateNothing
+
+    @Test
+    public void touchingTheExpectedSpotRemovesIt() {
+        Screen screen = new Screen();
+        SpotOnGame game = screen.game;
+        game.reset(0, 7);
+        long now = CROWDED.getSpotsPerLevel() * CROWDED.getSpotDelay();
+        screen.now = now;
+        game.advanceTo(now);
+        game.prepareHitTests(now);
+        assertEquals(CROWDED.getSpotsPerLevel(), game.getSpots().size());
+
+        // touch 1 to the level's goal where each is now, in order
+        for (int number = 1; number <= game.getNumGoal() - 1; ++number) {
+            SpotStore spots = game.getSpots();
+            int slot = slotOf(spots, number);
+            float t = spots.progress(slot, now);
+            float half = SpotOnGame.SPOT_DIAMETER / 2f;
+            int spot = game.findSpot(spots.x(slot, t) + half,
+                    spots.y(slot, t) + half, now);
+            assertEquals(spots.handle(slot), spot);
+            assertTrue(game.touchSpot(spot, now));
+            assertTrue(!spots.contains(spot));
+            assertEquals(number + 1, game.getNumOn());
+            assertNull(screen.views.view(slot));
+            screen.check();
+        } // end for
+    } // end method touchingTheExpectedSpotRemovesIt
+
+    // slot of the spot showing number
+    private static int slotOf(SpotStore spots, int number) {
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot))
+            if (spots.getNumber(slot) == number)
+                return slot;
+        throw new AssertionError("No spot shows " + number);
+    } // end method slotOf
+
+    // touches the expected spot, another spot or the background, as
+    // SpotOnView.touchGame does
+    private static void touch(SpotOnGame game, Random player, long now) {
+        SpotStore spots = game.getSpots();
+        int choice = player.nextInt(10);
+        float x = player.nextInt(FIELD_WIDTH);
+        float y = player.nextInt(FIELD_HEIGHT);
+        int target = SpotStore.NONE;
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot)) {
+            boolean expected = spots.getNumber(slot) == game.getNumOn();
+            if (choice < 3 ? expected : choice < 7 && !expected)
+                target = slot;
+        } // end for
+        if (target != SpotStore.NONE) {
+            float t = spots.progress(target, now);
+            x = spots.x(target, t) + SpotOnGame.SPOT_DIAMETER / 2;
+            y = spots.y(target, t) + SpotOnGame.SPOT_DIAMETER / 2;
+        } // end if
+
+        int spot = game.findSpot(x, y, now);
+        if (spot != SpotStore.NONE)
+            game.touchSpot(spot, now);
+        else
+            game.touchBackground();
+    } // end method touch
+
+    // saves the game as SpotOnView.pause does and restores it after
+    // PAUSE_LENGTH as restoreGame does; returns the time it resumed
+    private static long pause(Screen screen, long now) {
+        SpotOnGame game = screen.game;
+        byte[] saved = game.saveState(now);
+        long resumed = now + PAUSE_LENGTH;
+        screen.views.hideAll(); // as cancelAnimations does
+        game.restoreState(saved, resumed);
+        screen.now = resumed;
+        SpotStore spots = game.getSpots(); // as showSpots does
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot))
+            screen.views.show(spots, slot, resumed);
+        assertArrayEquals(saved, game.saveState(resumed));
+        game.advanceTo(resumed);
+        return resumed;
+    } // end method pause
+
+    // SpotOnView's side of a game: the listener calls SpotViews as
+    // SpotOnView's gameListener does, and the host keeps the views it
+    // shows as the children of a layout, as SpotOnView's spotViewHost
+    // does with relativeLayout
+    private static final class Screen implements SpotOnGame.Listener,
+            SpotViews.Host<Object> {
+        final SpotOnGame game =
+                new SpotOnGame(new GameRandom(), this, CROWDED);
+        final SpotViews<Object> views =
+                new SpotViews<Object>(this, 2 * SpotOnGame.INITIAL_SPOTS,
+                        POOL_CAPACITY);
+        long now; // the game time SpotOnView's clock would report
+        int added; // spots the game has added
+        private final Object[] children = new Object[POOL_CAPACITY];
+        private int childCount;
+
+        Screen() {
+            game.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        } // end Screen constructor
+
+        // checks there is a child view for each spot in play and no
+        // other, and an animation for each spot not yet missed
+        void check() {
+            SpotStore spots = game.getSpots();
+            assertEquals(spots.size(), childCount);
+            assertEquals(childCount, views.getShownCount());
+            int moving = 0;
+            for (int slot = spots.first(); slot != SpotStore.NONE;
+                    slot = spots.next(slot)) {
+                Object view = views.view(slot);
+                assertNotNull("slot " + slot + " has no view", view);
+                assertTrue(indexOf(view) >= 0);
+                if (!spots.isMissed(slot))
+                    ++moving;
+            } // end for
+            assertEquals(moving, views.getAnimationCount());
+            assertEquals(views.getMisses(), childCount +
+                    views.getIdleCount() + views.getDiscards());
+        } // end method check
+
+        // index of view among the children, or -1
+        private int indexOf(Object view) {
+            for (int i = 0; i < childCount; ++i)
+                if (children[i] == view)
+                    return i;
+            return -1;
+        } // end method indexOf
+
+        public Object create() {
+            return new Object();
+        } // end method create
+
+        public boolean show(Object view, SpotStore spots, int slot,
+                long time) {
+            assertTrue("view shown twice", indexOf(view) < 0);
+            children[childCount++] = view; // as addView does
+            return !spots.isMissed(slot) && spots.fraction(slot, time) < 1f;
+        } // end method show
+
+        public void hide(Object view) {
+            int index = indexOf(view);
+            assertTrue("view hidden twice", index >= 0);
+            children[index] = children[--childCount]; // as removeView does
+            children[childCount] = null;
+        } // end method hide
+
+        public void onSpotAdded(int spot) {
+            ++added;
+            views.show(game.getSpots(), game.getSpots().slot(spot), now);
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+            views.missed(game.getSpots().slot(spot));
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+            views.hide(game.getSpots().slot(spot));
+        } // end method onSpotTouched
+
+        public void onLevelStarted(int level) {
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+        } // end method onLevelCompleted
+
+        public void onWrongSpot(int spot) {
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+        } // end method onGameWon
+
+        public void onGameLost() {
+        } // end method onGameLost
+    } // end class Screen
+} // end class SpotOnGameTest
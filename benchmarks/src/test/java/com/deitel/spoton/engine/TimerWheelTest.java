@@ -0,0 +1,70 @@
+// TimerWheelTest.java
+// Checks the wheel fires every timer once, in order and never early
+package com.deitel.spoton.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+    private static final int RESOLUTION = 16; // ms
+    private static final int BUCKETS = 64; // a turn of 1024 ms
+
+    @Test
+    public void firesInDeadlineOrder() {
+        Random random = new Random(3);
+        TimerWheel wheel = new TimerWheel(RESOLUTION, BUCKETS, 1);
+        wheel.clear(0);
+
+        // deadlines up to several turns ahead, some sharing a time
+        int count = 5000;
+        for (int i = 0; i < count; ++i)
+            wheel.schedule(random.nextInt(8 * RESOLUTION * BUCKETS),
+                    random.nextInt(3), i);
+        assertEquals(count, wheel.size());
+
+        long lastDeadline = 0;
+        int lastKind = 0;
+        int fired = 0;
+        for (long now = 0; wheel.size() > 0; now += 1 + random.nextInt(40)) {
+            long next = wheel.nextDeadline();
+            while (wheel.poll(now)) {
+                long deadline = wheel.getFiredDeadline();
+                int kind = wheel.getFiredKind();
+                assertTrue("fired early", deadline <= now);
+                assertTrue("out of order", deadline > lastDeadline ||
+                        deadline == lastDeadline && kind >= lastKind);
+                assertEquals(next, deadline);
+                next = wheel.nextDeadline();
+                lastDeadline = deadline;
+                lastKind = kind;
+                ++fired;
+            } // end while
+            assertTrue(wheel.nextDeadline() > now);
+        } // end for
+
+        assertEquals(count, fired);
+        assertFalse(wheel.poll(Long.MAX_VALUE / 2));
+        assertEquals(Long.MAX_VALUE, wheel.nextDeadline());
+    } // end method firesInDeadlineOrder
+
+    @Test
+    public void clearCancelsEveryTimer() {
+        TimerWheel wheel = new TimerWheel(RESOLUTION, BUCKETS, 4);
+        wheel.clear(0);
+        for (int i = 0; i < 100; ++i)
+            wheel.schedule(i * 50, 0, i);
+        wheel.clear(1000);
+        assertEquals(0, wheel.size());
+        assertFalse(wheel.poll(1500));
+
+        wheel.schedule(2000, 1, 42);
+        assertFalse(wheel.poll(1999));
+        assertTrue(wheel.poll(2000));
+        assertEquals(42, wheel.getFiredData());
+    } // end method clearCancelsEveryTimer
+} // end class TimerWheelTest
@@ -0,0 +1,98 @@
+// TrajectoryPlannerTest.java
+// Checks planned trajectories stay on the field and mostly keep apart
+package com.deitel.spoton.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrajectoryPlannerTest {
+    private static final int DIAMETER = SpotOnGame.SPOT_DIAMETER;
+    private static final int LEVELS = 200;
+
+    @Test
+    public void plansStayOnTheField() {
+        GameRandom random = new GameRandom(1);
+        SpotStore spots = new SpotStore(16, SpotOnGame.END_SCALE);
+        TrajectoryPlanner planner =
+                new TrajectoryPlanner(DIAMETER, SpotOnGame.END_SCALE);
+        int[][] fields = {{1080, 1776}, {1776, 1080}, {320, 480}, {50, 50}};
+
+        for (int[] field : fields) {
+            int width = field[0];
+            int height = field[1];
+            for (int level = 0; level < 20; ++level) {
+                planner.plan(random, spots, 0, SpotOnGame.INITIAL_SPOTS,
+                        SpotOnGame.SPOT_DELAY,
+                        SpotOnGame.INITIAL_ANIMATION_DURATION, width, height);
+                assertEquals(SpotOnGame.INITIAL_SPOTS, planner.size());
+                for (int i = 0; i < planner.size(); ++i) {
+                    assertInside(planner.getStartX(i), width);
+                    assertInside(planner.getStartY(i), height);
+                    assertInside(planner.getEndX(i), width);
+                    assertInside(planner.getEndY(i), height);
+                } // end for
+            } // end for
+        } // end for
+    } // end method plansStayOnTheField
+
+    // checks a top-left coordinate leaves the spot on a field size long,
+    // or at 0 if the field is smaller than a spot
+    private static void assertInside(float position, int size) {
+        assertTrue(position >= 0);
+        assertTrue(position <= Math.max(0, size - DIAMETER));
+    } // end method assertInside
+
+    @Test
+    public void samePlanFromTheSameSeed() {
+        SpotStore spots = new SpotStore(16, SpotOnGame.END_SCALE);
+        TrajectoryPlanner first =
+                new TrajectoryPlanner(DIAMETER, SpotOnGame.END_SCALE);
+        TrajectoryPlanner second =
+                new TrajectoryPlanner(DIAMETER, SpotOnGame.END_SCALE);
+        first.plan(new GameRandom(5), spots, 0, SpotOnGame.INITIAL_SPOTS,
+                SpotOnGame.SPOT_DELAY, SpotOnGame.INITIAL_ANIMATION_DURATION,
+                1080, 1776);
+        second.plan(new GameRandom(5), spots, 0, SpotOnGame.INITIAL_SPOTS,
+                SpotOnGame.SPOT_DELAY, SpotOnGame.INITIAL_ANIMATION_DURATION,
+                1080, 1776);
+
+        for (int i = 0; i < first.size(); ++i) {
+            assertEquals(first.getStartX(i), second.getStartX(i), 0f);
+            assertEquals(first.getStartY(i), second.getStartY(i), 0f);
+            assertEquals(first.getEndX(i), second.getEndX(i), 0f);
+            assertEquals(first.getEndY(i), second.getEndY(i), 0f);
+        } // end for
+    } // end method samePlanFromTheSameSeed
+
+    @Test
+    public void fewSpotsOverlapAroundThoseInPlay() {
+        GameRandom random = new GameRandom(9);
+        SpotStore spots = new SpotStore(16, SpotOnGame.END_SCALE);
+        TrajectoryPlanner planner =
+                new TrajectoryPlanner(DIAMETER, SpotOnGame.END_SCALE);
+        int overlaps = 0;
+
+        for (int level = 0; level < LEVELS; ++level) {
+            // the previous level's last few spots, some already stopped
+            spots.clear();
+            for (int i = 0; i < 5; ++i) {
+                int spot = spots.add(i + 1, random.nextInt(980),
+                        random.nextInt(1676), random.nextInt(980),
+                        random.nextInt(1676), -i * 4000L,
+                        SpotOnGame.INITIAL_ANIMATION_DURATION);
+                if (i >= 3)
+                    spots.state[spots.slot(spot)] = SpotStore.STOPPED;
+            } // end for
+
+            planner.plan(random, spots, 0, SpotOnGame.INITIAL_SPOTS,
+                    SpotOnGame.SPOT_DELAY,
+                    SpotOnGame.INITIAL_ANIMATION_DURATION, 1080, 1776);
+            overlaps += planner.getOverlapCount();
+        } // end for
+
+        // a level of the default game averages well under one
+        assertTrue("overlaps " + overlaps, overlaps < LEVELS);
+    } // end method fewSpotsOverlapAroundThoseInPlay
+} // end class TrajectoryPlannerTest
@@ -0,0 +1,104 @@
+// GameClock.java
+// Frame-synchronized game clock that stops while the game is paused
+package com.deitel.spoton;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+// Game time is uptime in milliseconds minus the time spent paused, so the
+// game resumes exactly where it stopped. While running, the clock calls
+// its Callback once per display frame with the frame's game time.
+class GameClock implements Choreographer.FrameCallback {
+    // receives the game time of each frame
+    interface Callback {
+        void onFrame(long gameTime);
+    } // end interface Callback
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final Choreographer choreographer; // the UI thread's
+    private final Callback callback;
+    private final GameMetrics metrics; // records frame timing
+
+    private boolean running; // started and not stopped
+    private boolean paused; // time is not passing
+    private long pausedAt; // uptime ms when the current pause began
+    private long pausedTime; // total ms spent paused
+
+    private long lastFrameNanos; // vsync time of the previous frame
+
+    // constructs a stopped clock that records frame timing in metrics;
+    // call on the UI thread
+    GameClock(Callback callback, GameMetrics metrics) {
+        this.callback = callback;
+        this.metrics = metrics;
+        choreographer = Choreographer.getInstance();
+    } // end GameClock constructor
+
+    // starts delivering frames, unless the clock is paused
+    void start() {
+        running = true;
+        lastFrameNanos = 0; // the gap since the last game is not a frame
+        postFrame();
+    } // end method start
+
+    // stops delivering frames; game time keeps passing
+    void stop() {
+        running = false;
+        choreographer.removeFrameCallback(this);
+    } // end method stop
+
+    // stops game time and frames until resume
+    void pause() {
+        if (paused)
+            return;
+
+        paused = true;
+        pausedAt = SystemClock.uptimeMillis();
+        choreographer.removeFrameCallback(this);
+    } // end method pause
+
+    // restarts game time where pause stopped it
+    void resume() {
+        if (!paused)
+            return;
+
+        paused = false;
+        pausedTime += SystemClock.uptimeMillis() - pausedAt;
+        lastFrameNanos = 0; // the pause is not a frame interval
+        postFrame();
+    } // end method resume
+
+    private void postFrame() {
+        choreographer.removeFrameCallback(this);
+        if (running && !paused)
+            choreographer.postFrameCallback(this);
+    } // end method postFrame
+
+    // current game time; during a frame, the frame's game time
+    long now() {
+        long uptime = paused ? pausedAt :
+                AnimationUtils.currentAnimationTimeMillis();
+        return uptime - pausedTime;
+    } // end method now
+
+    // called by the Choreographer at the start of each frame
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // frameTimeNanos is the vsync time, on the System.nanoTime and
+        // uptime clock; how long after it this runs shows main-thread load
+        metrics.callbackDelays.record(System.nanoTime() - frameTimeNanos);
+        if (lastFrameNanos != 0)
+            metrics.recordFrameInterval(frameTimeNanos - lastFrameNanos);
+        lastFrameNanos = frameTimeNanos;
+
+        postFrame(); // before the callback, which may stop the clock
+        callback.onFrame(frameTimeNanos / NANOS_PER_MILLI - pausedTime);
+    } // end method doFrame
+
+    // total ms spent paused
+    long getPausedTime() {
+        return pausedTime;
+    } // end method getPausedTime
+} // end class GameClock
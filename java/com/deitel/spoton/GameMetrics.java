@@ -0,0 +1,206 @@
+// GameMetrics.java
+// Frame, touch, spawn, score and handoff latency histograms for the game
+package com.deitel.spoton;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+// The histograms other than frameDurations and inputHandoffs are recorded
+// on the UI thread, inputHandoffs on SpotOnView's logic thread and
+// frameDurations on the metrics thread, which also writes the dumps, so
+// no recording path locks or allocates. dump is called while the logic
+// thread is idle.
+class GameMetrics {
+    private static final String TAG = "GameMetrics"; // for log messages
+
+    // recorded by GameClock from Choreographer frame callbacks
+    final LatencyHistogram frameIntervals =
+            new LatencyHistogram("frame interval (vsync to vsync)");
+    final LatencyHistogram callbackDelays =
+            new LatencyHistogram("frame callback delay (vsync to callback)");
+
+    // recorded by SpotOnView; touchToSound only for touches whose voice
+    // started playing
+    final LatencyHistogram touchToSound =
+            new LatencyHistogram("touch to SoundPool.play");
+    final LatencyHistogram spawnCosts =
+            new LatencyHistogram("spot spawn (addNewSpot)");
+    final LatencyHistogram scoreCosts =
+            new LatencyHistogram("score display (displayScores)");
+
+    // recorded while the game runs on SpotOnView's logic thread
+    final LatencyHistogram inputHandoffs =
+            new LatencyHistogram("input handoff (UI to logic thread)");
+    final LatencyHistogram commandHandoffs =
+            new LatencyHistogram("command handoff (logic thread to UI)");
+    final LatencyHistogram commandDrains =
+            new LatencyHistogram("command drain (drainCommands)");
+    final LatencyHistogram holdWaits =
+            new LatencyHistogram("hold wait (holdGame for logic thread)");
+
+    // recorded on the metrics thread from FrameMetrics, API level 24+
+    private final LatencyHistogram frameDurations =
+            new LatencyHistogram("frame duration (FrameMetrics total)");
+    private long jankyFrames; // frames that took longer than a period
+    private long unreportedFrames; // frames FrameMetrics could not report
+
+    private volatile long framePeriod = 16666667; // ns per refresh
+    private long skippedFrames; // vsyncs without a frame callback
+
+    private final File dumpFile; // where dump writes
+    private final File recordingDirectory; // where saveRecording writes
+    private static final int MAX_RECORDINGS = 10; // older ones are deleted
+    private static final String RECORDING_PREFIX = "game-";
+    private static final String RECORDING_SUFFIX = ".spotrec";
+    private final Handler metricsHandler; // runs on the metrics thread
+    private Object frameMetricsListener; // a FrameMetricsRecorder, or null
+
+    // constructs metrics that dump to dumpFile and save input recordings
+    // in recordingDirectory
+    GameMetrics(File dumpFile, File recordingDirectory) {
+        this.dumpFile = dumpFile;
+        this.recordingDirectory = recordingDirectory;
+        HandlerThread thread = new HandlerThread("GameMetrics");
+        thread.start();
+        metricsHandler = new Handler(thread.getLooper());
+    } // end GameMetrics constructor
+
+    // sets the display's refresh rate, which defines a dropped frame
+    void setRefreshRate(float framesPerSecond) {
+        if (framesPerSecond > 0)
+            framePeriod = (long) (1e9 / framesPerSecond);
+    } // end method setRefreshRate
+
+    // records the time between two consecutive frame callbacks, counting
+    // the vsyncs that passed without one
+    void recordFrameInterval(long nanos) {
+        frameIntervals.record(nanos);
+        if (nanos > framePeriod + framePeriod / 2)
+            skippedFrames += (nanos + framePeriod / 2) / framePeriod - 1;
+    } // end method recordFrameInterval
+
+    // starts recording the durations of window's frames, where supported
+    void start(Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N ||
+                frameMetricsListener != null)
+            return;
+
+        FrameMetricsRecorder recorder = new FrameMetricsRecorder();
+        window.addOnFrameMetricsAvailableListener(recorder, metricsHandler);
+        frameMetricsListener = recorder;
+    } // end method start
+
+    // stops recording window's frames
+    void stop(Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N ||
+                frameMetricsListener == null)
+            return;
+
+        window.removeOnFrameMetricsAvailableListener(
+                (FrameMetricsRecorder) frameMetricsListener);
+        frameMetricsListener = null;
+    } // end method stop
+
+    // records each frame's total duration; runs on the metrics thread
+    @TargetApi(Build.VERSION_CODES.N)
+    private class FrameMetricsRecorder
+            implements Window.OnFrameMetricsAvailableListener {
+        @Override
+        public void onFrameMetricsAvailable(Window window,
+                FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            long duration =
+                    frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            frameDurations.record(duration);
+            if (duration > framePeriod)
+                ++jankyFrames;
+            unreportedFrames += dropCountSinceLastInvocation;
+        } // end method onFrameMetricsAvailable
+    } // end class FrameMetricsRecorder
+
+    // writes every histogram to the dump file on the metrics thread,
+    // after extra, lines of other statistics
+    void dump(final String extra) {
+        // copy the game threads' histograms here; they keep recording
+        final LatencyHistogram[] histograms = {
+                new LatencyHistogram(frameIntervals),
+                new LatencyHistogram(callbackDelays),
+                new LatencyHistogram(touchToSound),
+                new LatencyHistogram(spawnCosts),
+                new LatencyHistogram(scoreCosts),
+                new LatencyHistogram(inputHandoffs),
+                new LatencyHistogram(commandHandoffs),
+                new LatencyHistogram(commandDrains),
+                new LatencyHistogram(holdWaits)};
+        final long skipped = skippedFrames;
+
+        metricsHandler.post(new Runnable() {
+            public void run() {
+                try (PrintWriter out =
+                        new PrintWriter(new FileWriter(dumpFile))) {
+                    out.println("frame period=" + framePeriod +
+                            "ns skipped=" + skipped + " janky=" +
+                            jankyFrames + " unreported=" + unreportedFrames);
+                    out.println(extra);
+                    for (LatencyHistogram histogram : histograms)
+                        histogram.print(out);
+                    frameDurations.print(out);
+                } // end try
+                catch (IOException e) {
+                    Log.w(TAG, "Could not write " + dumpFile, e);
+                } // end catch
+            } // end method run
+        }); // end Runnable
+    } // end method dump
+
+    // writes recording, an InputRecorder recording of the game started at
+    // wall-clock time gameStart, on the metrics thread, replacing any
+    // earlier save of the same game and keeping only the newest
+    // MAX_RECORDINGS games
+    void saveRecording(long gameStart, final byte[] recording) {
+        final File file = new File(recordingDirectory,
+                RECORDING_PREFIX + gameStart + RECORDING_SUFFIX);
+
+        metricsHandler.post(new Runnable() {
+            public void run() {
+                if (!recordingDirectory.isDirectory() &&
+                        !recordingDirectory.mkdirs()) {
+                    Log.w(TAG, "Could not create " + recordingDirectory);
+                    return;
+                } // end if
+
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(recording);
+                } // end try
+                catch (IOException e) {
+                    Log.w(TAG, "Could not write " + file, e);
+                } // end catch
+
+                // names hold the start times, so they sort oldest first
+                String[] names = recordingDirectory.list();
+                if (names == null || names.length <= MAX_RECORDINGS)
+                    return;
+                Arrays.sort(names);
+                for (int i = 0; i < names.length - MAX_RECORDINGS; ++i)
+                    if (names[i].startsWith(RECORDING_PREFIX))
+                        new File(recordingDirectory, names[i]).delete();
+            } // end method run
+        }); // end Runnable
+    } // end method saveRecording
+
+    // stops the metrics thread once pending dumps have been written
+    void release() {
+        metricsHandler.getLooper().quitSafely();
+    } // end method release
+} // end class GameMetrics
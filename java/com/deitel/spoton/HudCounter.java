@@ -0,0 +1,74 @@
+// HudCounter.java
+// A TextView showing a label and a number, redrawn only when the number
+// changes and without allocating
+package com.deitel.spoton;
+
+import android.widget.TextView;
+
+// The text is formatted into a char array owned by the counter and handed
+// to TextView.setText(char[], int, int), which wraps it without copying
+// it into a String. The view's width is fixed to fit the label and a
+// number of digits, so a changed number redraws the view without a
+// layout pass; a number too long for the width widens it once.
+class HudCounter {
+    private static final int MAX_DIGITS = 11; // "-2147483648"
+
+    private final TextView view;
+    private final char[] text; // the label followed by the number
+    private final int labelLength;
+    private int digits; // characters the view's width allows for
+    private int value; // the number shown
+    private boolean shown; // whether value has been shown yet
+
+    // constructs a counter showing label followed by numbers of up to
+    // digits characters in view
+    HudCounter(TextView view, String label, int digits) {
+        this.view = view;
+        labelLength = label.length();
+        text = new char[labelLength + MAX_DIGITS];
+        label.getChars(0, labelLength, text, 0);
+        reserve(digits);
+    } // end HudCounter constructor
+
+    // shows value unless it is already shown; returns whether it changed
+    boolean set(int value) {
+        if (shown && value == this.value)
+            return false;
+
+        this.value = value;
+        shown = true;
+
+        // write the digits backwards from the end of the array, then move
+        // them up to the label
+        int end = text.length;
+        int start = end;
+        long remaining = Math.abs((long) value);
+        do {
+            text[--start] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0)
+            text[--start] = '-';
+
+        int length = end - start;
+        System.arraycopy(text, start, text, labelLength, length);
+        if (length > digits)
+            reserve(length); // rare; costs one layout pass
+
+        view.setText(text, 0, labelLength + length);
+        return true;
+    } // end method set
+
+    // fixes the view's width to fit the label and digits characters
+    private void reserve(int digits) {
+        this.digits = digits;
+        char[] widest = new char[labelLength + digits];
+        System.arraycopy(text, 0, widest, 0, labelLength);
+        for (int i = labelLength; i < widest.length; ++i)
+            widest[i] = '0'; // digits are equally wide in the UI fonts
+
+        float width = view.getPaint().measureText(widest, 0, widest.length);
+        view.setWidth((int) Math.ceil(width) + view.getCompoundPaddingLeft() +
+                view.getCompoundPaddingRight());
+    } // end method reserve
+} // end class HudCounter
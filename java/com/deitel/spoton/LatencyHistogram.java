@@ -0,0 +1,117 @@
+// LatencyHistogram.java
+// Fixed-size histogram of durations that records without allocating
+package com.deitel.spoton;
+
+import java.io.PrintWriter;
+
+// Durations in nanoseconds are counted in log-linear buckets: each power
+// of two is split into SUB_BUCKETS equal buckets, so a bucket's width is
+// at most 1/SUB_BUCKETS of its lower bound (12.5%) at any magnitude.
+// record touches only the preallocated counts; copying and printing,
+// which allocate, are meant for dumps.
+class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name; // what is measured, for dumps
+    private final long[] counts = new long[BUCKETS];
+    private long count; // number of recorded durations
+    private long total; // sum of recorded durations in ns
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    // constructs an empty histogram labelled name
+    LatencyHistogram(String name) {
+        this.name = name;
+    } // end LatencyHistogram constructor
+
+    // constructs a copy of histogram, for dumping while it keeps recording
+    LatencyHistogram(LatencyHistogram histogram) {
+        name = histogram.name;
+        System.arraycopy(histogram.counts, 0, counts, 0, BUCKETS);
+        count = histogram.count;
+        total = histogram.total;
+        min = histogram.min;
+        max = histogram.max;
+    } // end LatencyHistogram copy constructor
+
+    // counts a duration of nanos ns; negative durations count as 0
+    void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+
+        ++counts[bucket(nanos)];
+        ++count;
+        total += nanos;
+        if (nanos < min)
+            min = nanos;
+        if (nanos > max)
+            max = nanos;
+    } // end method record
+
+    // bucket counting duration value
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    } // end method bucket
+
+    // smallest duration counted by bucket
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    } // end method lowerBound
+
+    // number of recorded durations
+    long getCount() {
+        return count;
+    } // end method getCount
+
+    // mean recorded duration in ns, or 0 if there are none
+    long getMean() {
+        return (count == 0) ? 0 : total / count;
+    } // end method getMean
+
+    // largest recorded duration in ns
+    long getMax() {
+        return max;
+    } // end method getMax
+
+    // lower bound of the bucket holding the duration that fraction of the
+    // recorded durations do not exceed, clamped to min and max
+    long getPercentile(double fraction) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return Math.min(max, Math.max(min, lowerBound(bucket)));
+        } // end for
+
+        return max;
+    } // end method getPercentile
+
+    // prints a summary line in microseconds followed by one line per
+    // non-empty bucket: its lower bound in ns and its count
+    void print(PrintWriter out) {
+        out.printf("%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus " +
+                "p99=%.1fus max=%.1fus%n", name, count, getMean() / 1e3,
+                getPercentile(0.5) / 1e3, getPercentile(0.9) / 1e3,
+                getPercentile(0.99) / 1e3, max / 1e3);
+
+        for (int bucket = 0; bucket < BUCKETS; ++bucket)
+            if (counts[bucket] != 0)
+                out.println("  " + lowerBound(bucket) + " " + counts[bucket]);
+    } // end method print
+} // end class LatencyHistogram
@@ -0,0 +1,149 @@
+// NumeralBitmapCache.java
+// Bounded cache of numeral bitmaps decoded and pre-scaled to the spot size
+package com.deitel.spoton;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+class NumeralBitmapCache {
+    private final Resources resources; // used to decode the numerals
+    private final int[] imageIds; // drawable resource ID for each number
+    private final int spotDiameter; // bitmaps are scaled to fit this size
+    private final int maxBytes; // memory cap for all cached bitmaps
+
+    // cached bitmaps and last-use stamps, indexed by number
+    private final Bitmap[] bitmaps;
+    private final long[] lastUse;
+    private long useClock; // increases on every access, for LRU eviction
+    private int sizeBytes; // bytes held by the cached bitmaps
+
+    // statistics for sizing the cache
+    private int hits; // get calls answered from the cache
+    private int misses; // get calls that had to decode a numeral
+    private int prefetches; // numerals decoded ahead of use by prefetch
+    private int evictions; // bitmaps dropped to stay under maxBytes
+
+    // constructs a cache for the numerals in imageIds (index 0 unused)
+    NumeralBitmapCache(Resources resources, int[] imageIds,
+                       int spotDiameter, int maxBytes) {
+        this.resources = resources;
+        this.imageIds = imageIds;
+        this.spotDiameter = spotDiameter;
+        this.maxBytes = maxBytes;
+        bitmaps = new Bitmap[imageIds.length];
+        lastUse = new long[imageIds.length];
+    } // end NumeralBitmapCache constructor
+
+    // returns the bitmap for number, decoding it only on a cache miss
+    Bitmap get(int number) {
+        Bitmap bitmap = bitmaps[number];
+
+        if (bitmap != null)
+            ++hits;
+        else {
+            ++misses;
+            bitmap = load(number);
+        } // end else
+
+        lastUse[number] = ++useClock;
+        return bitmap;
+    } // end method get
+
+    // decodes numbers first through last (inclusive) so that spots showing
+    // them can be created without decoding or scaling
+    void prefetch(int first, int last) {
+        for (int number = first; number <= last; ++number) {
+            if (bitmaps[number] == null) {
+                ++prefetches;
+                load(number);
+            } // end if
+
+            lastUse[number] = ++useClock;
+        } // end for
+    } // end method prefetch
+
+    // decodes number's image, scales it to fit the spot and caches it
+    private Bitmap load(int number) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false; // scale once, to the spot size, below
+        Bitmap source = BitmapFactory.decodeResource(
+                resources, imageIds[number], options);
+
+        // keep the aspect ratio, as the spot ImageView's FIT_CENTER does
+        float scale = Math.min((float) spotDiameter / source.getWidth(),
+                (float) spotDiameter / source.getHeight());
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+        Bitmap bitmap = source;
+
+        if (width != source.getWidth() || height != source.getHeight()) {
+            bitmap = Bitmap.createScaledBitmap(source, width, height, true);
+            source.recycle();
+        } // end if
+
+        int bytes = bitmap.getByteCount();
+        evictUntilFits(bytes);
+        bitmaps[number] = bitmap;
+        sizeBytes += bytes;
+        return bitmap;
+    } // end method load
+
+    // evicts least recently used bitmaps until bytes more will fit
+    private void evictUntilFits(int bytes) {
+        while (sizeBytes + bytes > maxBytes) {
+            int oldest = -1;
+
+            for (int number = 0; number < bitmaps.length; ++number) {
+                if (bitmaps[number] != null &&
+                        (oldest < 0 || lastUse[number] < lastUse[oldest]))
+                    oldest = number;
+            } // end for
+
+            if (oldest < 0)
+                return; // cache is empty; a single bitmap may exceed the cap
+
+            // the bitmap may still be displayed, so leave recycling to the GC
+            sizeBytes -= bitmaps[oldest].getByteCount();
+            bitmaps[oldest] = null;
+            ++evictions;
+        } // end while
+    } // end method evictUntilFits
+
+    // number of get calls answered from the cache
+    int getHitCount() {
+        return hits;
+    } // end method getHitCount
+
+    // number of get calls that decoded a numeral
+    int getMissCount() {
+        return misses;
+    } // end method getMissCount
+
+    // number of numerals decoded by prefetch
+    int getPrefetchCount() {
+        return prefetches;
+    } // end method getPrefetchCount
+
+    // number of bitmaps evicted to stay under the memory cap
+    int getEvictionCount() {
+        return evictions;
+    } // end method getEvictionCount
+
+    // bytes currently held by cached bitmaps
+    int getSizeBytes() {
+        return sizeBytes;
+    } // end method getSizeBytes
+
+    // memory cap in bytes
+    int getMaxBytes() {
+        return maxBytes;
+    } // end method getMaxBytes
+
+    @Override
+    public String toString() {
+        return "NumeralBitmapCache[hits=" + hits + ", misses=" + misses +
+                ", prefetches=" + prefetches + ", evictions=" + evictions +
+                ", bytes=" + sizeBytes + "/" + maxBytes + "]";
+    } // end method toString
+} // end class NumeralBitmapCache
@@ -0,0 +1,403 @@
+// SessionStats.java
+// Records each level played in an append-only log, written in batches on
+// a background thread
+package com.deitel.spoton;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.util.Log;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+// The thread running the game, the UI thread or SpotOnView's logic
+// thread, only copies a finished level into a memory buffer; the
+// stats thread appends the buffered records to the log in one write,
+// brings the best-times index up to date and rewrites it, so no game
+// event waits on the disk. The log and index formats are described in
+// SessionStatsFile.
+class SessionStats implements Handler.Callback {
+    private static final String TAG = "SessionStats"; // for log messages
+    private static final String LOG_FILE = "stats.log";
+    private static final String INDEX_FILE = "stats.idx";
+    private static final long FLUSH_DELAY = 10000; // ms records may wait
+    private static final int INITIAL_RECORDS = 16; // buffered before growing
+
+    // messages handled on the stats thread
+    private static final int OPEN = 1;
+    private static final int FLUSH = 2;
+    private static final int READ_TOP = 3; // arg1: table; obj: callback
+    private static final int CLOSE = 4;
+
+    // one record read back from the log
+    static final class Result {
+        long gameStart; // wall-clock ms when the game started
+        int level;
+        int outcome; // SessionStatsFile.COMPLETED, WON or LOST
+        int wrongTouches; // during this level
+        int backgroundTouches;
+        int missedSpots;
+        int levelTime; // seconds spent on this level
+        int totalTime; // seconds into the game when the level ended
+        int timeLeft; // seconds left on the level's clock
+    } // end class Result
+
+    // receives the results read by readTop, on the UI thread
+    interface TopResultsCallback {
+        void onTopResults(int table, Result[] results);
+    } // end interface TopResultsCallback
+
+    // the game being recorded, only touched on the thread running the game
+    private long gameStart; // 0 while no game is being recorded
+    private int startWrongTouches; // the game's counters when the level
+    private int startBackgroundTouches; // being played started
+    private int startMissedSpots;
+
+    // records not yet handed to the stats thread
+    private final Object lock = new Object();
+    private ByteBuffer pending = // guarded by lock
+            ByteBuffer.allocate(INITIAL_RECORDS * SessionStatsFile.RECORD_SIZE);
+    private boolean flushPosted; // guarded by lock
+
+    private final File logFile;
+    private final File indexFile;
+    private final HandlerThread thread;
+    private final Handler statsHandler; // runs on thread
+    private final Handler uiHandler; // delivers TopResultsCallbacks
+
+    // only touched on the stats thread
+    private ByteBuffer writing = // the batch being written
+            ByteBuffer.allocate(INITIAL_RECORDS * SessionStatsFile.RECORD_SIZE);
+    private FileChannel log; // null until opened and after a failure
+    private SessionStatsFile.Index index; // matches the log when open
+
+    // constructs stats kept in directory and starts reading its index
+    SessionStats(File directory) {
+        logFile = new File(directory, LOG_FILE);
+        indexFile = new File(directory, INDEX_FILE);
+        thread = new HandlerThread("SessionStats");
+        thread.start();
+        statsHandler = new Handler(thread.getLooper(), this);
+        uiHandler = new Handler(Looper.getMainLooper());
+        statsHandler.sendEmptyMessage(OPEN);
+    } // end SessionStats constructor
+
+    // starts recording game, which just started its first level
+    void startGame(SpotOnGame game) {
+        gameStart = System.currentTimeMillis();
+        startLevel(game);
+    } // end method startGame
+
+    // starts recording game, continued from a snapshot, unless it is
+    // already being recorded; a game continued after the process was
+    // stopped is recorded as a new game from its current level, whose
+    // touches and misses before the stop are not counted
+    void continueGame(SpotOnGame game) {
+        if (gameStart == 0)
+            startGame(game);
+    } // end method continueGame
+
+    // remembers game's counters at the start of a level
+    private void startLevel(SpotOnGame game) {
+        startWrongTouches = game.getWrongTouches();
+        startBackgroundTouches = game.getBackgroundTouches();
+        startMissedSpots = game.getMissedSpots();
+    } // end method startLevel
+
+    // records the level game just ended with outcome, a SessionStatsFile
+    // outcome; the record is written within FLUSH_DELAY ms, or as soon as
+    // possible if the game ended
+    void levelEnded(SpotOnGame game, int outcome) {
+        if (gameStart == 0)
+            return; // the game is not being recorded
+
+        synchronized (lock) {
+            if (pending.remaining() < SessionStatsFile.RECORD_SIZE) {
+                ByteBuffer larger =
+                        ByteBuffer.allocate(2 * pending.capacity());
+                pending.flip();
+                pending = larger.put(pending);
+            } // end if
+
+            int timeLeft = Math.max(0, game.getTimeLimit());
+            SessionStatsFile.putRecord(pending, gameStart, game.getLevel(),
+                    outcome, game.getWrongTouches() - startWrongTouches,
+                    game.getBackgroundTouches() - startBackgroundTouches,
+                    game.getMissedSpots() - startMissedSpots,
+                    game.getLevelTimeLimit() - timeLeft,
+                    game.getTotalTime(), timeLeft);
+
+            if (!flushPosted) {
+                flushPosted = true;
+                statsHandler.sendEmptyMessageDelayed(FLUSH, FLUSH_DELAY);
+            } // end if
+        } // end synchronized
+
+        if (outcome == SessionStatsFile.COMPLETED)
+            startLevel(game);
+        else {
+            gameStart = 0; // the game is over
+            flush();
+        } // end else
+    } // end method levelEnded
+
+    // has the buffered records written now instead of after FLUSH_DELAY
+    void flush() {
+        statsHandler.removeMessages(FLUSH);
+        statsHandler.sendEmptyMessage(FLUSH);
+    } // end method flush
+
+    // writes the buffered records, closes the log and ends the thread
+    void release() {
+        flush();
+        statsHandler.sendEmptyMessage(CLOSE);
+        thread.quitSafely();
+    } // end method release
+
+    // reads the records of the fastest results in table, level or
+    // GAME_TABLE, from the log without scanning it, and passes them to
+    // callback on the UI thread; includes the records flushed before the
+    // call
+    void readTop(int table, TopResultsCallback callback) {
+        statsHandler.obtainMessage(READ_TOP, table, 0, callback)
+                .sendToTarget();
+    } // end method readTop
+
+    @Override
+    public boolean handleMessage(Message message) {
+        switch (message.what) {
+            case OPEN:
+                open();
+                break;
+            case FLUSH:
+                writeBatch();
+                break;
+            case READ_TOP:
+                readTopResults(message.arg1,
+                        (TopResultsCallback) message.obj);
+                break;
+            case CLOSE:
+                close();
+                break;
+        } // end switch
+        return true;
+    } // end method handleMessage
+
+    // opens the log, starting a new one if there is none or it cannot be
+    // read, and brings the index up to date with it; returns false if the
+    // log cannot be opened
+    private boolean open() {
+        if (log != null)
+            return true;
+
+        try {
+            log = new RandomAccessFile(logFile, "rw").getChannel();
+
+            ByteBuffer header =
+                    ByteBuffer.allocate(SessionStatsFile.LOG_HEADER_SIZE);
+            readFully(header, 0);
+            header.flip();
+            if (header.limit() < SessionStatsFile.LOG_HEADER_SIZE ||
+                    !SessionStatsFile.isLog(header)) {
+                if (log.size() > 0)
+                    Log.w(TAG, "Starting a new log; " + logFile +
+                            " is not a stats log of this version");
+                log.truncate(0);
+                header.clear();
+                SessionStatsFile.putLogHeader(header);
+                header.flip();
+                writeFully(header, 0);
+            } // end if
+
+            // drop a record cut short by a crash during an append
+            long records = SessionStatsFile.getRecordCount(log.size());
+            log.truncate(SessionStatsFile.getRecordOffset(records));
+
+            index = readIndex();
+            if (index == null || index.recordCount > records)
+                index = new SessionStatsFile.Index(); // rebuild it
+            if (index.recordCount < records) {
+                catchUp(records);
+                writeIndex();
+            } // end if
+            return true;
+        } // end try
+        catch (IOException e) {
+            Log.w(TAG, "Could not open " + logFile, e);
+            close();
+            return false;
+        } // end catch
+    } // end method open
+
+    // adds the log's records after those the index covers to it
+    private void catchUp(long records) throws IOException {
+        ByteBuffer chunk =
+                ByteBuffer.allocate(64 * SessionStatsFile.RECORD_SIZE);
+        while (index.recordCount < records) {
+            chunk.clear();
+            int count = (int) Math.min(records - index.recordCount,
+                    chunk.capacity() / SessionStatsFile.RECORD_SIZE);
+            chunk.limit(count * SessionStatsFile.RECORD_SIZE);
+            readFully(chunk,
+                    SessionStatsFile.getRecordOffset(index.recordCount));
+            for (int i = 0; i < count; ++i)
+                index.add(chunk, i * SessionStatsFile.RECORD_SIZE);
+        } // end while
+    } // end method catchUp
+
+    // the index file's contents, or null if it is missing or unreadable
+    private SessionStatsFile.Index readIndex() {
+        if (!indexFile.exists())
+            return null;
+
+        try (FileChannel channel =
+                new RandomAccessFile(indexFile, "r").getChannel()) {
+            if (channel.size() != SessionStatsFile.INDEX_SIZE)
+                return null;
+
+            ByteBuffer buffer =
+                    ByteBuffer.allocate(SessionStatsFile.INDEX_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            } // end while
+            buffer.flip();
+            return SessionStatsFile.Index.read(buffer);
+        } // end try
+        catch (IOException e) {
+            Log.w(TAG, "Could not read " + indexFile, e);
+            return null;
+        } // end catch
+    } // end method readIndex
+
+    // replaces the index file with index; a crash leaves the old file,
+    // which open brings up to date
+    private void writeIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SessionStatsFile.INDEX_SIZE);
+        index.write(buffer);
+
+        File temporary = new File(indexFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temporary)) {
+            out.write(buffer.array());
+        } // end try
+        if (!temporary.renameTo(indexFile))
+            throw new IOException("Could not replace " + indexFile);
+    } // end method writeIndex
+
+    // appends the records buffered since the last batch in one write
+    private void writeBatch() {
+        synchronized (lock) {
+            ByteBuffer batch = pending;
+            pending = writing;
+            writing = batch;
+            flushPosted = false;
+        } // end synchronized
+
+        writing.flip();
+        try {
+            if (!writing.hasRemaining() || !open())
+                return; // the records are lost if the log cannot be opened
+
+            writeFully(writing,
+                    SessionStatsFile.getRecordOffset(index.recordCount));
+            for (int offset = 0; offset < writing.limit();
+                    offset += SessionStatsFile.RECORD_SIZE)
+                index.add(writing, offset);
+            writeIndex();
+        } // end try
+        catch (IOException e) {
+            Log.w(TAG, "Could not write " + logFile, e);
+            close(); // open rebuilds the index from whatever was written
+        } // end catch
+        finally {
+            writing.clear();
+        } // end finally
+    } // end method writeBatch
+
+    // reads the records of table's entries and delivers them to callback
+    private void readTopResults(final int table,
+            final TopResultsCallback callback) {
+        int count = 0;
+        final Result[] results = new Result[SessionStatsFile.TOP_COUNT];
+
+        if (open()) {
+            ByteBuffer record =
+                    ByteBuffer.allocate(SessionStatsFile.RECORD_SIZE);
+            try {
+                while (count < SessionStatsFile.TOP_COUNT &&
+                        index.records[table][count] != SessionStatsFile.EMPTY) {
+                    record.clear();
+                    readFully(record, SessionStatsFile.getRecordOffset(
+                            index.records[table][count]));
+                    results[count++] = toResult(record);
+                } // end while
+            } // end try
+            catch (IOException e) {
+                Log.w(TAG, "Could not read " + logFile, e);
+            } // end catch
+        } // end if
+
+        final Result[] found = new Result[count];
+        System.arraycopy(results, 0, found, 0, count);
+        uiHandler.post(new Runnable() {
+            public void run() {
+                callback.onTopResults(table, found);
+            } // end method run
+        }); // end Runnable
+    } // end method readTopResults
+
+    // the record held in buffer
+    private static Result toResult(ByteBuffer buffer) {
+        Result result = new Result();
+        result.gameStart = SessionStatsFile.getGameStart(buffer, 0);
+        result.level = SessionStatsFile.getLevel(buffer, 0);
+        result.outcome = SessionStatsFile.getOutcome(buffer, 0);
+        result.wrongTouches = SessionStatsFile.getWrongTouches(buffer, 0);
+        result.backgroundTouches =
+                SessionStatsFile.getBackgroundTouches(buffer, 0);
+        result.missedSpots = SessionStatsFile.getMissedSpots(buffer, 0);
+        result.levelTime = SessionStatsFile.getLevelTime(buffer, 0);
+        result.totalTime = SessionStatsFile.getTotalTime(buffer, 0);
+        result.timeLeft = SessionStatsFile.getTimeLeft(buffer, 0);
+        return result;
+    } // end method toResult
+
+    // reads from the log at position until buffer is full or the log ends
+    private void readFully(ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, position);
+            if (read < 0)
+                return;
+            position += read;
+        } // end while
+    } // end method readFully
+
+    // writes all of buffer to the log at position
+    private void writeFully(ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining())
+            position += log.write(buffer, position);
+    } // end method writeFully
+
+    // closes the log; the next batch reopens it
+    private void close() {
+        if (log == null)
+            return;
+
+        try {
+            log.close();
+        } // end try
+        catch (IOException e) {
+            Log.w(TAG, "Could not close " + logFile, e);
+        } // end catch
+        log = null;
+        index = null;
+    } // end method close
+} // end class SessionStats
@@ -0,0 +1,229 @@
+// SessionStatsFile.java
+// Layout of the session stats log and of its best-times index
+package com.deitel.spoton;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.deitel.spoton.engine.SpotOnGame;
+
+// The log starts with LOG_MAGIC, the format VERSION and RECORD_SIZE,
+// followed by one fixed-size record per level played, oldest first, all
+// big-endian. Records are only ever appended, so record n is always at
+// LOG_HEADER_SIZE + n * RECORD_SIZE; a record cut short by a crash is
+// ignored and overwritten by the next append.
+//
+// The index holds, for each level, the TOP_COUNT fastest completions and,
+// for the whole game, the TOP_COUNT fastest wins, each as a time and a
+// record number, plus the number of log records it covers. It is
+// rewritten whole after each batch of appends and brought up to date from
+// the records after the ones it covers, so the log is never rescanned.
+final class SessionStatsFile {
+    static final int VERSION = 1;
+
+    // log header: magic, version, record size
+    static final String LOG_MAGIC = "SPOTSTAT";
+    static final int LOG_HEADER_SIZE = 16;
+
+    // record fields and their offsets
+    static final int RECORD_SIZE = 32;
+    private static final int GAME_START = 0; // long, wall-clock ms
+    private static final int LEVEL = 8; // byte
+    private static final int OUTCOME = 9; // byte, one of the below
+    private static final int WRONG_TOUCHES = 10; // short, this level's
+    private static final int BACKGROUND_TOUCHES = 12; // short
+    private static final int MISSED_SPOTS = 14; // short
+    private static final int LEVEL_TIME = 16; // int, seconds on this level
+    private static final int TOTAL_TIME = 20; // int, seconds into the game
+    private static final int TIME_LEFT = 24; // int, seconds left at the end
+                                             // 28: int, reserved
+
+    // outcomes of a level
+    static final int COMPLETED = 0; // the next level started
+    static final int WON = 1; // the final level was completed
+    static final int LOST = 2; // the time limit ran out
+
+    // index header: magic, version, records covered, then the tables
+    static final String INDEX_MAGIC = "SPOTSIDX";
+    static final int TOP_COUNT = 10; // entries in each table
+    private static final int INDEX_HEADER_SIZE = 16;
+    static final int TABLE_COUNT = SpotOnGame.FINAL_LEVEL + 1; // levels, game
+    static final int GAME_TABLE = 0; // table of won games; tables 1 to
+                                     // FINAL_LEVEL are levels
+    static final int INDEX_SIZE =
+            INDEX_HEADER_SIZE + TABLE_COUNT * TOP_COUNT * 8;
+    static final int EMPTY = -1; // record number of an unused entry
+
+    private SessionStatsFile() {
+    } // end SessionStatsFile constructor
+
+    // writes a record for a level at buffer's position and advances it
+    static void putRecord(ByteBuffer buffer, long gameStart, int level,
+            int outcome, int wrongTouches, int backgroundTouches,
+            int missedSpots, int levelTime, int totalTime, int timeLeft) {
+        buffer.putLong(gameStart).put((byte) level).put((byte) outcome);
+        buffer.putShort(clampShort(wrongTouches));
+        buffer.putShort(clampShort(backgroundTouches));
+        buffer.putShort(clampShort(missedSpots));
+        buffer.putInt(levelTime).putInt(totalTime).putInt(timeLeft);
+        buffer.putInt(0); // reserved
+    } // end method putRecord
+
+    private static short clampShort(int value) {
+        return (short) Math.min(value, Short.MAX_VALUE);
+    } // end method clampShort
+
+    // the fields of the record starting at offset in buffer
+    static long getGameStart(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + GAME_START);
+    } // end method getGameStart
+
+    static int getLevel(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + LEVEL);
+    } // end method getLevel
+
+    static int getOutcome(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + OUTCOME);
+    } // end method getOutcome
+
+    static int getWrongTouches(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + WRONG_TOUCHES);
+    } // end method getWrongTouches
+
+    static int getBackgroundTouches(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + BACKGROUND_TOUCHES);
+    } // end method getBackgroundTouches
+
+    static int getMissedSpots(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + MISSED_SPOTS);
+    } // end method getMissedSpots
+
+    static int getLevelTime(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + LEVEL_TIME);
+    } // end method getLevelTime
+
+    static int getTotalTime(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + TOTAL_TIME);
+    } // end method getTotalTime
+
+    static int getTimeLeft(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + TIME_LEFT);
+    } // end method getTimeLeft
+
+    // writes a log header to buffer at its position
+    static void putLogHeader(ByteBuffer buffer) {
+        putMagic(buffer, LOG_MAGIC);
+        buffer.putInt(VERSION).putInt(RECORD_SIZE);
+    } // end method putLogHeader
+
+    // whether buffer starts with a log header of this version
+    static boolean isLog(ByteBuffer buffer) {
+        return hasMagic(buffer, LOG_MAGIC) && buffer.getInt(8) == VERSION &&
+                buffer.getInt(12) == RECORD_SIZE;
+    } // end method isLog
+
+    // number of whole records in a log of length bytes
+    static long getRecordCount(long length) {
+        return Math.max(0, (length - LOG_HEADER_SIZE) / RECORD_SIZE);
+    } // end method getRecordCount
+
+    // offset of record number record in the log
+    static long getRecordOffset(long record) {
+        return LOG_HEADER_SIZE + record * RECORD_SIZE;
+    } // end method getRecordOffset
+
+    // the best times and their records, fastest first, kept up to date
+    // with the log by add
+    static final class Index {
+        long recordCount; // log records the tables include
+        final int[][] times = new int[TABLE_COUNT][TOP_COUNT];
+        final int[][] records = new int[TABLE_COUNT][TOP_COUNT];
+
+        // constructs an index of an empty log
+        Index() {
+            for (int table = 0; table < TABLE_COUNT; ++table) {
+                Arrays.fill(times[table], Integer.MAX_VALUE);
+                Arrays.fill(records[table], EMPTY);
+            } // end for
+        } // end Index constructor
+
+
+        // includes the next log record, which starts at offset in buffer
+        void add(ByteBuffer buffer, int offset) {
+            int record = (int) recordCount++;
+            int level = getLevel(buffer, offset);
+            int outcome = getOutcome(buffer, offset);
+            if (outcome == LOST || level < 1 || level > SpotOnGame.FINAL_LEVEL)
+                return; // only completed levels have a time
+
+            insert(level, getLevelTime(buffer, offset), record);
+            if (outcome == WON)
+                insert(GAME_TABLE, getTotalTime(buffer, offset), record);
+        } // end method add
+
+        // inserts time into table if it is among the fastest; ties keep
+        // the earlier record first
+        private void insert(int table, int time, int record) {
+            int[] tableTimes = times[table];
+            int[] tableRecords = records[table];
+            int position = TOP_COUNT;
+            while (position > 0 && tableTimes[position - 1] > time)
+                --position;
+            if (position == TOP_COUNT)
+                return; // slower than every entry
+
+            System.arraycopy(tableTimes, position, tableTimes, position + 1,
+                    TOP_COUNT - position - 1);
+            System.arraycopy(tableRecords, position, tableRecords,
+                    position + 1, TOP_COUNT - position - 1);
+            tableTimes[position] = time;
+            tableRecords[position] = record;
+        } // end method insert
+
+        // writes this index to buffer at its position
+        void write(ByteBuffer buffer) {
+            putMagic(buffer, INDEX_MAGIC);
+            buffer.putInt(VERSION).putInt((int) recordCount);
+            for (int table = 0; table < TABLE_COUNT; ++table)
+                for (int i = 0; i < TOP_COUNT; ++i)
+                    buffer.putInt(times[table][i]).putInt(records[table][i]);
+        } // end method write
+
+        // reads an index written by write from buffer; returns null if
+        // buffer does not hold one of this version
+        static Index read(ByteBuffer buffer) {
+            if (buffer.limit() != INDEX_SIZE ||
+                    !hasMagic(buffer, INDEX_MAGIC) ||
+                    buffer.getInt(8) != VERSION || buffer.getInt(12) < 0)
+                return null;
+
+            Index index = new Index();
+            index.recordCount = buffer.getInt(12);
+            buffer.position(INDEX_HEADER_SIZE);
+            for (int table = 0; table < TABLE_COUNT; ++table) {
+                for (int i = 0; i < TOP_COUNT; ++i) {
+                    index.times[table][i] = buffer.getInt();
+                    index.records[table][i] = buffer.getInt();
+                    int record = index.records[table][i];
+                    if (record < EMPTY || record >= index.recordCount)
+                        return null; // refers outside the records it covers
+                } // end for
+            } // end for
+            return index;
+        } // end method read
+    } // end class Index
+
+    private static void putMagic(ByteBuffer buffer, String magic) {
+        for (int i = 0; i < magic.length(); ++i)
+            buffer.put((byte) magic.charAt(i));
+    } // end method putMagic
+
+    private static boolean hasMagic(ByteBuffer buffer, String magic) {
+        if (buffer.limit() < magic.length())
+            return false;
+        for (int i = 0; i < magic.length(); ++i)
+            if (buffer.get(i) != magic.charAt(i))
+                return false;
+        return true;
+    } // end method hasMagic
+} // end class SessionStatsFile
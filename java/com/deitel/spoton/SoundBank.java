@@ -0,0 +1,431 @@
+// SoundBank.java
+// Loads the game's sounds in the background and keeps them across pauses;
+// keeps only a window of the number voices resident
+package com.deitel.spoton;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+class SoundBank implements SoundPool.OnLoadCompleteListener {
+    private static final String TAG = "SoundBank"; // for log messages
+    private static final int NOT_LOADED = 0; // SoundPool sample IDs are > 0
+    private static final int NO_STATUS = Integer.MIN_VALUE; // not completed
+    private static final long VOICE_HOLD = 3000; // ms, longer than any voice
+
+    // residency of each sound, tracked on the UI thread
+    private static final byte UNLOADED = 0;
+    private static final byte LOADING = 1; // load requested, not complete
+    private static final byte READY = 2;
+
+    private final int bankResourceId; // raw resource in SoundBankFile form
+    private final int windowedCount; // IDs 1 to this follow setWindow
+    private final int maxStreams; // simultaneous streams for the SoundPool
+    private final int priority; // load and playback priority
+    private final long releaseDelay; // ms to keep samples after close
+    private final Handler handler; // runs delayed releases on the UI thread
+
+    private SoundPool soundPool; // null until open and after release
+    private Loader loader; // issues the load calls for soundPool
+
+    // per-sound state, only touched on the UI thread
+    private final boolean[] wanted; // whether the sound should be resident
+    private final byte[] residency; // UNLOADED, LOADING or READY
+    private final int[] readySamples; // sample ID of each READY sound
+    private int readyCount; // number of sounds that can be played
+    private long residentBytes; // decoded PCM held by READY sounds
+    private long peakResidentBytes; // most PCM held at once
+    private int windowFirst; // the number voices setWindow asked for
+    private int windowLast;
+    private int lastVoice; // number voice played last, or 0 once finished
+
+    // maps SoundPool sample IDs back to sound IDs, and holds each sound's
+    // PCM size; shared with the loader thread
+    private final SparseIntArray sampleSounds = new SparseIntArray();
+    private final int[] pcmBytes;
+
+    // a load call runs outside the lock, so a sample may complete before
+    // its ID is published and the pool may be released meanwhile; both
+    // guarded by sampleSounds
+    private final SparseIntArray earlyStatuses = new SparseIntArray();
+    private boolean loadRunning; // the loader is inside a load call
+    private SoundPool releasedPool; // for the loader to release after it
+
+    // statistics
+    private int notReadyPlays; // play calls for sounds still loading
+    private int failedLoads; // samples the SoundPool could not decode
+
+    // constructs a bank for sound IDs 1 to soundCount, packed in the raw
+    // resource bankResourceId; sounds 1 to windowedCount are resident only
+    // while inside the window set by setWindow, the others always
+    SoundBank(int bankResourceId, int soundCount, int windowedCount,
+              int maxStreams, int priority, long releaseDelay) {
+        this.bankResourceId = bankResourceId;
+        this.windowedCount = windowedCount;
+        this.maxStreams = maxStreams;
+        this.priority = priority;
+        this.releaseDelay = releaseDelay;
+        handler = new Handler(Looper.getMainLooper());
+
+        wanted = new boolean[soundCount + 1]; // index 0 unused
+        residency = new byte[soundCount + 1];
+        readySamples = new int[soundCount + 1];
+        pcmBytes = new int[soundCount + 1];
+        Arrays.fill(wanted, windowedCount + 1, soundCount + 1, true);
+    } // end SoundBank constructor
+
+    // makes the wanted sounds available, reusing the samples decoded
+    // before the last close if they have not been released yet; returns
+    // immediately
+    void open(Context context) {
+        handler.removeCallbacks(releaseRunnable); // keep decoded samples
+
+        if (soundPool != null)
+            return; // samples survived the pause
+
+        SoundPool pool = new SoundPool.Builder()
+                .setMaxStreams(maxStreams)
+                .build();
+        pool.setOnLoadCompleteListener(this);
+        soundPool = pool;
+        loader = new Loader(pool, context.getResources());
+
+        for (int id = 1; id < wanted.length; ++id)
+            updateResidency(id);
+    } // end method open
+
+    // keeps the number voices first to last resident, loading those not
+    // yet loaded and unloading the rest; the voice played last stays
+    // until it has had VOICE_HOLD ms to finish. Returns immediately
+    void setWindow(int first, int last) {
+        windowFirst = first;
+        windowLast = last;
+        for (int id = 1; id <= windowedCount; ++id) {
+            wanted[id] = (id >= first && id <= last) || id == lastVoice;
+            updateResidency(id);
+        } // end for
+
+        if (lastVoice != 0 && (lastVoice < first || lastVoice > last)) {
+            handler.removeCallbacks(voiceFinishedRunnable);
+            handler.postDelayed(voiceFinishedRunnable, VOICE_HOLD);
+        } // end if
+    } // end method setWindow
+
+    // Runnable that unloads the voice played last once it has finished,
+    // if the window has moved past it
+    private final Runnable voiceFinishedRunnable = new Runnable() {
+        public void run() {
+            lastVoice = 0;
+            setWindow(windowFirst, windowLast);
+        } // end method run
+    }; // end Runnable
+
+    // loads or unloads sound id to match whether it is wanted
+    private void updateResidency(int id) {
+        if (soundPool == null)
+            return; // open loads the wanted sounds
+
+        if (wanted[id] && residency[id] == UNLOADED) {
+            residency[id] = LOADING;
+            loader.load(id);
+        }
+        else if (!wanted[id] && residency[id] == READY) {
+            soundPool.unload(readySamples[id]);
+            readySamples[id] = NOT_LOADED;
+            residency[id] = UNLOADED;
+            --readyCount;
+            residentBytes -= pcmBytes[id];
+        } // end else if
+
+        // a sound still LOADING is unloaded when its load completes
+    } // end method updateResidency
+
+    // schedules the samples to be released after releaseDelay ms unless
+    // open is called again first
+    void close() {
+        handler.removeCallbacks(releaseRunnable);
+        handler.postDelayed(releaseRunnable, releaseDelay);
+    } // end method close
+
+    // releases the SoundPool and every decoded sample immediately
+    void release() {
+        handler.removeCallbacks(releaseRunnable);
+
+        if (loader != null) {
+            loader.quit(); // drop pending load calls and close the bank
+            loader = null;
+        } // end if
+
+        SoundPool pool;
+        synchronized (sampleSounds) {
+            pool = soundPool;
+            soundPool = null;
+            sampleSounds.clear();
+            earlyStatuses.clear();
+            if (loadRunning) { // not during its load call
+                releasedPool = pool;
+                pool = null;
+            } // end if
+        } // end synchronized
+
+        if (pool != null)
+            pool.release();
+
+        Arrays.fill(residency, UNLOADED);
+        Arrays.fill(readySamples, NOT_LOADED);
+        readyCount = 0;
+        residentBytes = 0;
+    } // end method release
+
+    // Runnable that releases the samples once the pause has lasted too long
+    private final Runnable releaseRunnable = new Runnable() {
+        public void run() {
+            release();
+        } // end method run
+    }; // end Runnable
+
+    // called on the UI thread when a sample finishes decoding
+    @Override
+    public void onLoadComplete(SoundPool pool, int sampleId, int status) {
+        if (pool != soundPool)
+            return; // completion from a pool that has since been released
+
+        int id;
+        int bytes;
+        synchronized (sampleSounds) {
+            id = sampleSounds.get(sampleId, NOT_LOADED);
+            if (id == NOT_LOADED) { // its load call has not returned yet
+                earlyStatuses.put(sampleId, status);
+                return;
+            } // end if
+
+            sampleSounds.delete(sampleId);
+            bytes = pcmBytes[id];
+        } // end synchronized
+
+        if (status != 0) {
+            ++failedLoads;
+            residency[id] = UNLOADED;
+            Log.w(TAG, "Sound " + id + " failed to load (status " +
+                    status + ")");
+        }
+        else if (!wanted[id]) {
+            pool.unload(sampleId); // the window moved on while it loaded
+            residency[id] = UNLOADED;
+        }
+        else {
+            readySamples[id] = sampleId;
+            residency[id] = READY;
+            ++readyCount;
+            residentBytes += bytes;
+            peakResidentBytes = Math.max(peakResidentBytes, residentBytes);
+        } // end else
+    } // end method onLoadComplete
+
+    // starts playing sound id; returns false, without blocking, if the
+    // sound has not finished loading or could not be played
+    boolean play(int id, float volume) {
+        int sampleId = readySamples[id];
+
+        if (soundPool == null || sampleId == NOT_LOADED) {
+            ++notReadyPlays;
+            Log.w(TAG, "Sound " + id + " is not ready to play");
+            return false;
+        } // end if
+
+        if (id <= windowedCount)
+            lastVoice = id; // kept resident by setWindow while it plays
+        return soundPool.play(sampleId, volume, volume, priority, 0, 1f) != 0;
+    } // end method play
+
+    // whether sound id has finished loading
+    boolean isReady(int id) {
+        return readySamples[id] != NOT_LOADED;
+    } // end method isReady
+
+    // number of sounds that have finished loading
+    int getReadyCount() {
+        return readyCount;
+    } // end method getReadyCount
+
+    // bytes of decoded PCM held by the loaded sounds
+    long getResidentBytes() {
+        return residentBytes;
+    } // end method getResidentBytes
+
+    // most bytes of decoded PCM held at once since construction
+    long getPeakResidentBytes() {
+        return peakResidentBytes;
+    } // end method getPeakResidentBytes
+
+    // number of play calls made for sounds that were not ready
+    int getNotReadyPlayCount() {
+        return notReadyPlays;
+    } // end method getNotReadyPlayCount
+
+    // number of samples the SoundPool failed to decode
+    int getFailedLoadCount() {
+        return failedLoads;
+    } // end method getFailedLoadCount
+
+    @Override
+    public String toString() {
+        return "SoundBank[ready=" + readyCount + ", resident=" +
+                residentBytes + "B, peak=" + peakResidentBytes +
+                "B, notReady=" + notReadyPlays + ", failed=" +
+                failedLoads + "]";
+    } // end method toString
+
+    // Issues one pool's load calls on a background thread, because opening
+    // and mapping the bank touch the disk. The bank stays open, and its
+    // index mapped, until the loader quits
+    private class Loader implements Handler.Callback {
+        private static final int LOAD = 1; // arg1: sound ID
+        private static final int CLOSE = 2;
+
+        private final SoundPool pool;
+        private final Resources resources;
+        private final HandlerThread thread;
+        private final Handler loadHandler;
+
+        // the open bank, only touched on thread
+        private AssetFileDescriptor file;
+        private FileInputStream stream; // closes file
+        private MappedByteBuffer index;
+        private int clipCount;
+        private boolean openFailed;
+
+        Loader(SoundPool pool, Resources resources) {
+            this.pool = pool;
+            this.resources = resources;
+            thread = new HandlerThread("SoundBankLoader");
+            thread.start();
+            loadHandler = new Handler(thread.getLooper(), this);
+        } // end Loader constructor
+
+        // has sound id loaded on the loader thread
+        void load(int id) {
+            loadHandler.obtainMessage(LOAD, id, 0).sendToTarget();
+        } // end method load
+
+        // drops pending loads, closes the bank and ends the thread
+        void quit() {
+            loadHandler.removeMessages(LOAD);
+            loadHandler.sendEmptyMessage(CLOSE);
+            thread.quitSafely();
+        } // end method quit
+
+        @Override
+        public boolean handleMessage(Message message) {
+            if (message.what == LOAD)
+                loadClip(message.arg1);
+            else
+                closeBank();
+            return true;
+        } // end method handleMessage
+
+        // has pool load sound id directly from its slice of the bank file
+        private void loadClip(int id) {
+            if (index == null && !openBank())
+                return;
+
+            if (id > clipCount) {
+                Log.e(TAG, "Sound bank holds only " + clipCount + " sounds");
+                return;
+            } // end if
+
+            int offset = SoundBankFile.getClipOffset(index, id);
+            int length = SoundBankFile.getClipLength(index, id);
+
+            synchronized (sampleSounds) {
+                if (pool != soundPool)
+                    return; // the bank was released
+                loadRunning = true;
+            } // end synchronized
+
+            // SoundPool reads the clip from the descriptor itself; the UI
+            // thread does not wait for the call
+            final int sampleId = pool.load(file.getFileDescriptor(),
+                    file.getStartOffset() + offset, length, priority);
+
+            SoundPool released;
+            final int status;
+            synchronized (sampleSounds) {
+                loadRunning = false;
+                released = releasedPool;
+                releasedPool = null;
+                if (released == null) {
+                    sampleSounds.put(sampleId, id);
+                    pcmBytes[id] = length - SoundBankFile.WAV_HEADER_SIZE;
+                } // end if
+                status = earlyStatuses.get(sampleId, NO_STATUS);
+                earlyStatuses.delete(sampleId);
+            } // end synchronized
+
+            if (released != null)
+                released.release(); // release ran during the call
+            else if (status != NO_STATUS) { // completed during the call
+                handler.post(new Runnable() {
+                    public void run() {
+                        onLoadComplete(pool, sampleId, status);
+                    } // end method run
+                }); // end Runnable
+            } // end else if
+        } // end method loadClip
+
+        // opens the bank and maps it into memory; returns false if it
+        // cannot be read
+        private boolean openBank() {
+            if (openFailed)
+                return false;
+
+            // the bank is stored uncompressed (aapt does not compress .wav
+            // files), so it has a file descriptor and offset within the APK
+            try {
+                file = resources.openRawResourceFd(bankResourceId);
+                stream = file.createInputStream();
+                index = stream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        file.getStartOffset(), file.getLength());
+                clipCount = SoundBankFile.getClipCount(index);
+                return true;
+            } // end try
+            catch (IOException | IllegalArgumentException |
+                    Resources.NotFoundException e) {
+                Log.e(TAG, "Could not open the sound bank", e);
+                closeBank();
+                openFailed = true;
+                return false;
+            } // end catch
+        } // end method openBank
+
+        // closes the bank; the mapping stays valid until it is collected
+        private void closeBank() {
+            try {
+                if (stream != null)
+                    stream.close();
+                else if (file != null)
+                    file.close();
+            } // end try
+            catch (IOException e) {
+                Log.w(TAG, "Could not close the sound bank", e);
+            } // end catch
+
+            stream = null;
+            file = null;
+            index = null;
+        } // end method closeBank
+    } // end class Loader
+} // end class SoundBank
@@ -0,0 +1,58 @@
+// SoundBankFile.java
+// Layout of res/raw/soundbank.wav, the game's sounds packed into one file
+package com.deitel.spoton;
+
+import java.nio.ByteBuffer;
+
+// The file starts with MAGIC, the format VERSION and the number of clips,
+// followed by an index holding each clip's offset and length in bytes,
+// all big-endian. Clips are numbered from 1, matching the sound IDs, and
+// each is a complete WAV file in FORMAT, so SoundPool can load it straight
+// from the bank's file descriptor. The packer in soundbank/ writes it.
+final class SoundBankFile {
+    static final String MAGIC = "SPOTBANK";
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16; // magic, version, clip count
+    static final int ENTRY_SIZE = 8; // offset, length
+    static final int ALIGNMENT = 4; // clips start at multiples of this
+
+    // every clip is 16-bit signed little-endian mono PCM at this rate
+    static final int SAMPLE_RATE = 22050;
+    static final int BITS_PER_SAMPLE = 16;
+    static final int CHANNELS = 1;
+    static final int WAV_HEADER_SIZE = 44; // RIFF, fmt and data headers
+
+    private SoundBankFile() {
+    } // end SoundBankFile constructor
+
+    // number of clips in bank; throws IllegalArgumentException if bank is
+    // not a sound bank of this version
+    static int getClipCount(ByteBuffer bank) {
+        if (bank.limit() < HEADER_SIZE)
+            throw new IllegalArgumentException("Sound bank is truncated");
+
+        for (int i = 0; i < MAGIC.length(); ++i)
+            if (bank.get(i) != MAGIC.charAt(i))
+                throw new IllegalArgumentException("Not a sound bank");
+
+        int version = bank.getInt(MAGIC.length());
+        if (version != VERSION)
+            throw new IllegalArgumentException(
+                    "Unsupported sound bank version " + version);
+
+        int count = bank.getInt(MAGIC.length() + 4);
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > bank.limit())
+            throw new IllegalArgumentException("Sound bank index is truncated");
+        return count;
+    } // end method getClipCount
+
+    // offset from the start of bank of clip id, from 1 to the clip count
+    static int getClipOffset(ByteBuffer bank, int id) {
+        return bank.getInt(HEADER_SIZE + (id - 1) * ENTRY_SIZE);
+    } // end method getClipOffset
+
+    // length in bytes of clip id, from 1 to the clip count
+    static int getClipLength(ByteBuffer bank, int id) {
+        return bank.getInt(HEADER_SIZE + (id - 1) * ENTRY_SIZE + 4);
+    } // end method getClipLength
+} // end class SoundBankFile
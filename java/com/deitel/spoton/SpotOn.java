@@ -5,6 +5,7 @@ package com.deitel.spoton;
 import android.app.Activity;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Trace;
 import android.widget.RelativeLayout;
 
 public class SpotOn extends Activity
@@ -15,6 +16,7 @@ public class SpotOn extends Activity
    @Override
    public void onCreate(Bundle savedInstanceState) 
    {
+      Trace.beginSection("SpotOn.onCreate"); // for systrace and Perfetto
       super.onCreate(savedInstanceState);
       setContentView(R.layout.main);
 
@@ -24,7 +26,21 @@ public class SpotOn extends Activity
       view = new SpotOnView(this, getPreferences(Context.MODE_PRIVATE), 
          layout); 
       layout.addView(view, 0); // add view to the layout
+
+      // continue the game this Activity was showing before it was recreated
+      if (savedInstanceState != null)
+         view.setSavedGame(
+            savedInstanceState.getByteArray(SpotOnView.SAVED_GAME));
+      Trace.endSection();
    } // end method onCreate
+
+   // called before this Activity may be destroyed and later recreated
+   @Override
+   public void onSaveInstanceState(Bundle outState)
+   {
+      super.onSaveInstanceState(outState);
+      outState.putByteArray(SpotOnView.SAVED_GAME, view.saveGame());
+   } // end method onSaveInstanceState
    
    // called when this Activity moves to the background
    @Override
@@ -41,5 +57,13 @@ public class SpotOn extends Activity
 	   super.onResume();
 	   view.resume(this); // re-initialize resources released in onPause
    } // end method onResume
+
+   // called when this Activity is destroyed
+   @Override
+   public void onDestroy()
+   {
+	   super.onDestroy();
+	   view.release(); // release resources held across pauses
+   } // end method onDestroy
 } // end class SpotOn
 
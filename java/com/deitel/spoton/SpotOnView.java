@@ -2,77 +2,125 @@
 // View that displays and manages the game
 package com.deitel.spoton;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
 import java.util.Random;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
+import android.animation.TimeInterpolator;
+import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.AlertDialog.Builder;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.SharedPreferences;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
 import android.media.AudioManager;
-import android.media.SoundPool;
 import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
-import org.w3c.dom.Text;
+import com.deitel.spoton.engine.CommandWriter;
+import com.deitel.spoton.engine.GameMirror;
+import com.deitel.spoton.engine.GameRandom;
+import com.deitel.spoton.engine.GameState;
+import com.deitel.spoton.engine.InputRecorder;
+import com.deitel.spoton.engine.LogicThread;
+import com.deitel.spoton.engine.SpotOnGame;
+import com.deitel.spoton.engine.SpotStore;
+import com.deitel.spoton.engine.SpotViews;
+import com.deitel.spoton.engine.SpscRing;
 
 public class SpotOnView extends View {
-    // constant for accessing the high score in SharedPreference
-    private static final String HIGH_SCORE = "HIGH_SCORE";
-    private SharedPreferences preferences; // stores the high score
-
-    // variables for managing the game
-    private int spotsTouched; // number of spots touched
-    private int score; // current score
-    private int level; // current level
+    private SharedPreferences preferences; // stores the paused game
+
+    // key of the game paused in SharedPreferences, as Base64 of a snapshot
+    static final String SAVED_GAME = "SAVED_GAME";
+    private static final String TAG = "SpotOnView"; // for log messages
+    private byte[] savedGame; // snapshot resume continues from, or null
+    private static final int WINS_SHOWN = 3; // fastest wins listed on a win
+
+    // variables for managing the game; the rules live in game
+    private SpotOnGame game; // levels, countdown and spawning
     private int viewWidth; // stores the width of this View
     private int viewHeight; // stores the height of this view
-    private long animationTime; // how long each spot remains on the screen
-    private boolean gameOver; // whether the game has ended
     private boolean gamePaused; // whether the game has ended
     private boolean dialogDisplayed; // whether the game has ended
-    private int highScore; // the game's all time high score
 
-    // collections of spots (ImageViews) and Animators
-    private final Queue<ImageView> spots =
-            new ConcurrentLinkedQueue<ImageView>();
-    private final Queue<Animator> animators =
-            new ConcurrentLinkedQueue<Animator>();
+    // the ImageView displaying the spot in each SpotStore slot, recycled
+    // through a bounded pool between levels and games
+    private SpotViews<ImageView> spotViews;
+
+    private boolean canvasRendering; // draw spots in onDraw, not as Views
+    private boolean canvasRenderingRequested; // applied by resetGame
+    private final RectF spotBounds = new RectF(); // reused by onDraw
+    private static final TimeInterpolator EASE = // View.animate()'s default
+            new AccelerateDecelerateInterpolator();
 
     private TextView timeTextView; // displays high score
     private TextView levelTextView; // displays current level
     private TextView totalTimeTextView;
+    private HudCounter timeCounter; // redraw those views only on changes
+    private HudCounter levelCounter;
+    private HudCounter totalTimeCounter;
     private LinearLayout livesLinearLayout; // displays lives remaining
     private RelativeLayout relativeLayout; // displays spots
     private Resources resources; // used to load resources
     private LayoutInflater layoutInflater; // used to inflate GUIs
 
-    // time in milliseconds for spot and touched spot animations
-    private static final int INITIAL_ANIMATION_DURATION = 15000;
-    private static final Random random = new Random(); // for random coords
-    private static final int SPOT_DIAMETER = 100; // initial spot size
-    private static final float SCALE_X = 0.5f; // end animation x scale
-    private static final float SCALE_Y = 0.5f; // end animation y scale
-    private static final int INITIAL_SPOTS = 10; // initial # of spots
-    private static final int SPOT_DELAY = 1000; // delay in milliseconds
-    private static final int LIVES = 3; // start with 3 lives
-    private static final int MAX_LIVES = 7; // maximum # of total lives
-    private static final int NEW_LEVEL = 10; // spots to reach new level
-    private Handler spotHandler; // adds new spots to the game
-    private Handler timeHandler;
+    private static final int SPOT_DIAMETER = SpotOnGame.SPOT_DIAMETER;
+    private static final int SPOT_POOL_CAPACITY =
+            2 * SpotOnGame.INITIAL_SPOTS;
+    private static final int NUMERAL_CACHE_BYTES = // two levels of ARGB
+            2 * SpotOnGame.INITIAL_SPOTS * SPOT_DIAMETER * SPOT_DIAMETER * 4;
+    private GameClock clock; // drives the game once per frame
+    private static final String METRICS_FILE = "metrics.txt";
+    private GameMetrics metrics; // latency histograms, dumped on pause
+    private Activity activity; // whose window metrics records
+    private long touchNanos; // when the latest touch on this View happened
+    private SessionStats sessionStats; // log of every level played
+
+    // every game is seeded and its inputs recorded, so it can be replayed
+    private static final String RECORDING_DIRECTORY = "recordings";
+    private final Random seeds = new Random(); // seeds each new game
+    private final InputRecorder recorder = new InputRecorder();
+    private long recordingStart; // wall-clock ms the recorded game began
+    private long inputTime; // game time of the frame or touch handled
+
+    // the game runs on the UI thread, or on logicThread if requested; the
+    // UI then draws mirror, which the logic thread's commands keep in
+    // step, and uses the game itself only between holdGame and releaseGame
+    private static final int COMMAND_CAPACITY = 256; // commands in flight
+    private static final long HOLD_TIMEOUT = // ns holdGame waits at most
+            TimeUnit.SECONDS.toNanos(2);
+    private static final long QUIT_TIMEOUT = 100; // ms to wait for the end
+    private GameState state; // game, or mirror while logicThread runs it
+    private SpotOnGame.Listener output; // gameListener, or commandWriter
+    private LogicThread logicThread; // null while the UI thread runs it
+    private boolean logicThreadRequested; // applied by resetGame
+    private GameMirror mirror;
+    private SpscRing commands; // from logicThread to the UI thread
+    private CommandWriter commandWriter;
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean drainPosted = new AtomicBoolean();
+
+    // the HUD and the game start first; decoding numerals and loading
+    // sounds wait until the first frame has been drawn
+    private final StartupTrace startup = new StartupTrace();
+    private boolean startedUp; // whether deferredStartup has run
 
     // sound IDs, constants and variables for the game's sounds
     private static final int HIT_SOUND_ID = 31;
@@ -80,29 +128,44 @@ public class SpotOnView extends View {
     private static final int DISAPPEAR_SOUND_ID = 33;
     private static final int UHOH_SOUND_ID = 34;
     private static final int APPLAUSE_SOUND_ID = 35;
+    private static final int SOUND_COUNT = 35; // IDs 1 to 30 speak numbers
+    private static final int VOICE_PREFETCH = 2; // voices loaded past numGoal
     private static final int SOUND_PRIORITY = 1;
-    private static final int SOUND_QUALITY = 100;
     private static final int MAX_STREAMS = 4;
-    private SoundPool soundPool; // plays sound effects
+    private static final long SOUND_RELEASE_DELAY = 60000; // ms after pause
+    private SoundBank soundBank; // loads and plays sound effects
     private int volume; // sound effect volume
-    private Map<Integer, Integer> soundMap; // maps ID to soundpool
-    private int numOn = 1;
-    private int numGoal = 10;
-    private int numSpotsMade = 1;
-    private int idChanger = 100;
-    private int timeLimit = 0;
-    private int totalTime = 0;
-    private Map<Integer, Integer> numMap;
+    private NumeralBitmapCache numeralCache; // pre-scaled numeral images
+
+    // drawable resource ID of the numeral for each number (index 0 unused)
+    private static final int[] NUMERAL_IMAGES = {0,
+            R.drawable.one, R.drawable.two, R.drawable.three,
+            R.drawable.four, R.drawable.five, R.drawable.six,
+            R.drawable.seven, R.drawable.eight, R.drawable.nine,
+            R.drawable.ten, R.drawable.eleven, R.drawable.twelve,
+            R.drawable.thirteen, R.drawable.fourteen, R.drawable.fifteen,
+            R.drawable.sixteen, R.drawable.seventeen, R.drawable.eighteen,
+            R.drawable.nineteen, R.drawable.twenty, R.drawable.twentyone,
+            R.drawable.twentytwo, R.drawable.twentythree,
+            R.drawable.twentyfour, R.drawable.twentyfive,
+            R.drawable.twentysix, R.drawable.twentyseven,
+            R.drawable.twentyeight, R.drawable.twentynine,
+            R.drawable.thirty};
 
 
     // constructs a new SpotOnView
     public SpotOnView(Context context, SharedPreferences sharedPreferences,
                       RelativeLayout parentLayout) {
         super(context);
+        startup.mark("view");
+        startup.begin("SpotOnView.<init>");
 
-        // load the high score
         preferences = sharedPreferences;
-        highScore = preferences.getInt(HIGH_SCORE, 0);
+
+        // load the game that was paused when the process last stopped
+        String saved = preferences.getString(SAVED_GAME, null);
+        if (saved != null)
+            savedGame = Base64.decode(saved, Base64.DEFAULT);
 
         // save Resources for loading external values
         resources = context.getResources();
@@ -112,6 +175,7 @@ public class SpotOnView extends View {
                 Context.LAYOUT_INFLATER_SERVICE);
 
         // get references to various GUI components
+        startup.begin("SpotOnView.hud");
         relativeLayout = parentLayout;
         livesLinearLayout = (LinearLayout) relativeLayout.findViewById(
                 R.id.lifeLinearLayout);
@@ -121,41 +185,42 @@ public class SpotOnView extends View {
                 R.id.levelTextView);
         totalTimeTextView = (TextView) relativeLayout.findViewById(
                 R.id.totalTimeTextView);
-
-        spotHandler = new Handler();// used to add spots when game starts
-        timeHandler = new Handler();
-
-        numMap = new HashMap<Integer, Integer>();
-        numMap.put(1,R.drawable.one);
-        numMap.put(2,R.drawable.two);
-        numMap.put(3,R.drawable.three);
-        numMap.put(4,R.drawable.four);
-        numMap.put(5,R.drawable.five);
-        numMap.put(6,R.drawable.six);
-        numMap.put(7,R.drawable.seven);
-        numMap.put(8,R.drawable.eight);
-        numMap.put(9,R.drawable.nine);
-        numMap.put(10,R.drawable.ten);
-        numMap.put(11,R.drawable.eleven);
-        numMap.put(12,R.drawable.twelve);
-        numMap.put(13,R.drawable.thirteen);
-        numMap.put(14,R.drawable.fourteen);
-        numMap.put(15,R.drawable.fifteen);
-        numMap.put(16,R.drawable.sixteen);
-        numMap.put(17,R.drawable.seventeen);
-        numMap.put(18,R.drawable.eighteen);
-        numMap.put(19,R.drawable.nineteen);
-        numMap.put(20,R.drawable.twenty);
-        numMap.put(21,R.drawable.twentyone);
-        numMap.put(22,R.drawable.twentytwo);
-        numMap.put(23,R.drawable.twentythree);
-        numMap.put(24,R.drawable.twentyfour);
-        numMap.put(25,R.drawable.twentyfive);
-        numMap.put(26,R.drawable.twentysix);
-        numMap.put(27,R.drawable.twentyseven);
-        numMap.put(28,R.drawable.twentyeight);
-        numMap.put(29,R.drawable.twentynine);
-        numMap.put(30,R.drawable.thirty);
+        timeCounter = new HudCounter(timeTextView, "Time: ", 2);
+        levelCounter = new HudCounter(levelTextView,
+                resources.getString(R.string.level) + " ", 1);
+        totalTimeCounter =
+                new HudCounter(totalTimeTextView, "Total Time: ", 3);
+        startup.end();
+
+        // recycles spots instead of inflating a new one for every spot
+        spotViews = new SpotViews<ImageView>(spotViewHost,
+                2 * SpotOnGame.INITIAL_SPOTS, SPOT_POOL_CAPACITY);
+
+        // the game's rules, fed with touches and the game clock
+        startup.begin("SpotOnView.game");
+        game = new SpotOnGame(new GameRandom(), logicListener);
+        state = game;
+        output = gameListener;
+        metrics = new GameMetrics(
+                new File(context.getFilesDir(), METRICS_FILE),
+                new File(context.getFilesDir(), RECORDING_DIRECTORY));
+        clock = new GameClock(frameCallback, metrics); // runs the game
+        sessionStats = new SessionStats(context.getFilesDir());
+        startup.end();
+
+        // sounds load in the background from one packed file and survive
+        // short pauses; sounds/soundbank.txt lists them in ID order. Only
+        // the current level's number voices stay resident
+        soundBank = new SoundBank(R.raw.soundbank, SOUND_COUNT,
+                SpotOnGame.MAX_NUMBER, MAX_STREAMS, SOUND_PRIORITY,
+                SOUND_RELEASE_DELAY);
+
+        // numerals are decoded and scaled once, then reused by every spot
+        numeralCache = new NumeralBitmapCache(resources, NUMERAL_IMAGES,
+                SPOT_DIAMETER, NUMERAL_CACHE_BYTES);
+        Log.i(TAG, "Numeral cache of " + NUMERAL_CACHE_BYTES + " bytes at " +
+                resources.getDisplayMetrics().densityDpi + " dpi");
+        startup.end();
     } // end SpotOnView constructor
 
     // store SpotOnView's width/height
@@ -163,341 +228,743 @@ public class SpotOnView extends View {
     protected void onSizeChanged(int width, int height, int oldw, int oldh) {
         viewWidth = width; // save the new width
         viewHeight = height; // save the new height
+        holdGame();
+        game.setFieldSize(width, height); // spots move within this View
+        if (recorder.isRecording())
+            recorder.recordFieldSize(clock.now(), width, height);
+        releaseGame();
+
+        // a restored game's spots were laid out for the saved field size
+        if (!gamePaused && !canvasRendering && state.getSpots().size() > 0)
+            showSpots();
     } // end method onSizeChanged
 
     // called by the SpotOn Activity when it receives a call to onPause
     public void pause() {
         gamePaused = true;
-        soundPool.release(); // release audio resources
-        soundPool = null;
+        clock.pause(); // game time stops until resume
+        holdGame(); // the game is used here until releaseGame below
+        if (recorder.isRecording())
+            recorder.recordPause(clock.now());
+        saveRecording();
+
+        // keep the game in memory for resume and in preferences in case
+        // the process is stopped before then
+        savedGame = snapshot();
+        SharedPreferences.Editor editor = preferences.edit();
+        if (savedGame != null)
+            editor.putString(SAVED_GAME,
+                    Base64.encodeToString(savedGame, Base64.NO_WRAP));
+        else
+            editor.remove(SAVED_GAME);
+        editor.apply(); // written in the background
+        sessionStats.flush(); // write the levels played so far
+
+        // write the latency histograms to the app's files directory
+        if (activity != null)
+            metrics.stop(activity.getWindow());
+        metrics.dump(String.format("events=%d lateness=%.2f/%dms " +
+                "paused=%dms %s %s %s%s", game.getEventCount(),
+                game.getMeanEventLateness(), game.getMaxEventLateness(),
+                clock.getPausedTime(), soundBank, spotViews, numeralCache,
+                queueStatistics()) + "\n" + startup);
+        soundBank.close(); // release audio resources unless resumed soon
         cancelAnimations(); // cancel all outstanding animations
+        releaseGame();
     } // end method pause
 
+    // the logic thread's queue depths and stalls for the metrics dump
+    private String queueStatistics() {
+        if (logicThread == null)
+            return "";
+        return String.format(" inputs=%d/%d stalls=%d commands=%d/%d " +
+                "stalls=%d", logicThread.getMaxQueueDepth(),
+                logicThread.getQueueCapacity(),
+                logicThread.getInputStallCount(), commands.getMaxDepth(),
+                commands.capacity(),
+                commandWriter.getStallCount());
+    } // end method queueStatistics
+
     // cancel animations and remove ImageViews representing spots
     private void cancelAnimations() {
-        // cancel remaining animations
-        for (Animator animator : animators)
-            animator.cancel();
-
-        // remove remaining spots from the screen
-        for (ImageView view : spots)
-            relativeLayout.removeView(view);
-
-        spotHandler.removeCallbacks(addSpotRunnable);
-        animators.clear();
-        spots.clear();
+        clock.stop(); // stop running the game's events
+        invalidate(); // clear canvas-rendered spots from the screen
+        spotViews.hideAll(); // and return the others to the pool
     } // end method cancelAnimations
 
     // called by the SpotOn Activity when it receives a call to onResume
     public void resume(Context context) {
+        startup.begin("SpotOnView.resume");
         gamePaused = false;
-        initializeSoundEffects(context); // initialize app's SoundPool
-
-        if (!dialogDisplayed)
-            resetGame(); // start the game
+        clock.resume(); // game time continues where pause stopped it
+        if (startedUp) // otherwise deferredStartup opens it
+            initializeSoundEffects(context); // initialize app's SoundPool
+
+        // record frame durations and count frames that miss a refresh
+        activity = (Activity) context;
+        metrics.setRefreshRate(activity.getWindowManager()
+                .getDefaultDisplay().getRefreshRate());
+        metrics.start(activity.getWindow());
+
+        // continue the paused game, or start a new one
+        if (!dialogDisplayed && !restoreGame())
+            resetGame();
+        startup.end();
+        startup.mark("resumed");
     } // end method resume
 
+    // decodes the level's numerals and starts loading sounds once the
+    // first frame, with the HUD, has been drawn
+    private final Runnable deferredStartup = new Runnable() {
+        public void run() {
+            startup.begin("SpotOnView.deferredStartup");
+            startedUp = true;
+            if (!gamePaused) { // otherwise the next resume does it
+                initializeSoundEffects(activity);
+                numeralCache.prefetch(state.getNumOn(), state.getNumGoal());
+            } // end if
+            startup.end();
+            startup.mark("deferred");
+        } // end method run
+    }; // end Runnable
+
+    // times the first spot shown, in the first frame drawn after it
+    private void spotShown() {
+        if (!startup.has("spotAdded")) {
+            startup.mark("spotAdded");
+            Choreographer.getInstance().postFrameCallback(firstSpotDrawn);
+        } // end if
+    } // end method spotShown
+
+    // runs at the start of the frame after the one that drew the first spot
+    private final Choreographer.FrameCallback firstSpotDrawn =
+            new Choreographer.FrameCallback() {
+        public void doFrame(long frameTimeNanos) {
+            startup.mark("firstSpot");
+            Log.i(TAG, startup.toString());
+        } // end method doFrame
+    }; // end Choreographer.FrameCallback
+
+    // returns a snapshot of the game in progress for the Activity's saved
+    // instance state, or null if there is no game to continue
+    public byte[] saveGame() {
+        if (gamePaused)
+            return savedGame;
+
+        holdGame();
+        byte[] snapshot = snapshot();
+        releaseGame();
+        return snapshot;
+    } // end method saveGame
+
+    // continues the game in snapshot, from saveGame, at the next resume
+    public void setSavedGame(byte[] snapshot) {
+        savedGame = snapshot;
+    } // end method setSavedGame
+
+    // snapshot of the game in progress, or null if it is over; the game
+    // must be held
+    private byte[] snapshot() {
+        if (dialogDisplayed || game.isGameOver())
+            return null;
+        return game.saveState(clock.now());
+    } // end method snapshot
+
+    // continues the saved game, if there is one and it is valid
+    private boolean restoreGame() {
+        if (savedGame == null)
+            return false;
+
+        cancelAnimations(); // recycle spots left over from before the pause
+        canvasRendering = canvasRenderingRequested; // choose spot renderer
+        holdGame();
+        applyLogicThread();
+        long now = clock.now();
+        inputTime = now;
+        try {
+            game.restoreState(savedGame, now);
+            sessionStats.continueGame(game);
+
+            // the snapshot continues the recorded game exactly, unless
+            // the recording was lost with the process
+            if (recorder.isRecording())
+                recorder.recordResume(now);
+            else {
+                startRecording(now);
+                recorder.recordRestore(now, savedGame);
+            } // end else
+        } // end try
+        catch (IllegalArgumentException e) {
+            Log.w(TAG, "Discarding saved game", e);
+            releaseGame();
+            return false;
+        } // end catch
+        finally {
+            savedGame = null; // pause saves the game again
+        } // end finally
+
+        showSpots(); // the game does not report restored spots as added
+        game.advanceTo(now);
+        releaseGame();
+        clock.start(); // the game advances with each frame from now on
+        return true;
+    } // end method restoreGame
+
+    // called by the SpotOn Activity when it is destroyed
+    public void release() {
+        soundBank.release(); // don't wait for the delayed release
+        if (logicThread != null)
+            logicThread.quit(QUIT_TIMEOUT); // it holds no resources
+        metrics.release(); // stop the metrics thread after its last dump
+        sessionStats.release(); // and the stats thread after its last write
+    } // end method release
+
     // start a new game
     public void resetGame() {
-        spots.clear(); // empty the List of spots
-        animators.clear(); // empty the List of Animators
+        cancelAnimations(); // recycle spots left over from the last game
+        canvasRendering = canvasRenderingRequested; // choose spot renderer
+        holdGame();
+        applyLogicThread(); // choose the thread that runs the game
         livesLinearLayout.removeAllViews(); // clear old lives from screen
 
-        animationTime = INITIAL_ANIMATION_DURATION; // init animation length
-        spotsTouched = 0; // reset the number of spots touched
-        level = 1; // reset the level
-        numOn = 1;
-        numGoal = 10;
-        numSpotsMade = 1;
-        idChanger = 100;
-        timeLimit = 60;
-        totalTime = 0;
-        gameOver = false; // the game is not over
-        displayScores(); // display scores and level
+        // start the countdown and add INITIAL_SPOTS new spots at
+        // SPOT_DELAY time intervals in ms
+        long now = clock.now();
+        long seed = seeds.nextLong();
+        inputTime = now;
+        startRecording(now);
+        recorder.recordReset(now, seed);
+        game.reset(now, seed);
+        sessionStats.startGame(game);
+        game.advanceTo(now);
+        releaseGame();
+        clock.start(); // the game advances with each frame from now on
+    } // end method resetGame
 
-        // add lives
+    // saves the last game's recording and starts recording a new one at
+    // game time now
+    private void startRecording(long now) {
+        saveRecording();
+        recorder.clear();
+        recordingStart = System.currentTimeMillis();
+        if (viewWidth > 0) // otherwise onSizeChanged records the size
+            recorder.recordFieldSize(now, viewWidth, viewHeight);
+    } // end method startRecording
+
+    // has the recording so far written in the background
+    private void saveRecording() {
+        if (!recorder.isEmpty())
+            metrics.saveRecording(recordingStart, recorder.toByteArray());
+    } // end method saveRecording
+
+    // chooses whether spots are drawn by this View in a single pass (true)
+    // or as one ImageView per spot (false); takes effect at the next game
+    public void setCanvasRendering(boolean enabled) {
+        canvasRenderingRequested = enabled;
+    } // end method setCanvasRendering
+
+    // chooses whether the game runs on a thread of its own, which sends
+    // this View only what to draw and play (true), or on the UI thread
+    // (false); takes effect at the next game
+    public void setLogicThread(boolean enabled) {
+        logicThreadRequested = enabled;
+    } // end method setLogicThread
+
+    // starts or stops the logic thread as requested; the game is held
+    private void applyLogicThread() {
+        if (logicThreadRequested == (logicThread != null))
+            return;
 
+        if (!logicThreadRequested) {
+            logicThread.quit(QUIT_TIMEOUT); // holdGame rendered the last
+            logicThread = null;
+            return;
+        } // end if
 
-        // add INITIAL_SPOTS new spots at SPOT_DELAY time intervals in ms
-        for (int i = 1; i <= INITIAL_SPOTS; ++i)
-            spotHandler.postDelayed(addSpotRunnable, i * SPOT_DELAY);
+        if (mirror == null) {
+            mirror = new GameMirror();
+            commands = new SpscRing(GameMirror.COMMAND_SIZE, COMMAND_CAPACITY);
+            commandWriter = new CommandWriter(game, commands);
+        } // end if
+        logicThread = new LogicThread("SpotOnLogic", logicTarget, commands,
+                drainRunnable, new LogicThread.HandoffRecorder() {
+                    public void record(long nanos) {
+                        metrics.inputHandoffs.record(nanos);
+                    } // end method record
+                }); // end LogicThread.HandoffRecorder
+        logicThread.start();
+    } // end method applyLogicThread
+
+    // makes the game safe to use on the UI thread: waits until the logic
+    // thread has handled every frame and touch sent to it and renders its
+    // commands, then has the game's events rendered directly until
+    // releaseGame. No frame or touch may be sent in between
+    private void holdGame() {
+        if (logicThread == null)
+            return; // the game always runs on the UI thread
+
+        long start = System.nanoTime();
+        boolean idle = logicThread.awaitIdle(HOLD_TIMEOUT);
+        metrics.holdWaits.record(System.nanoTime() - start);
+        if (!idle)
+            throw new IllegalStateException("Logic thread is not responding");
+        drainCommands();
+        output = gameListener;
+        state = game;
+    } // end method holdGame
+
+    // hands the game back to the logic thread, and this View to a copy of
+    // it that the logic thread's commands keep in step
+    private void releaseGame() {
+        if (logicThread == null)
+            return;
 
-        timeHandler.post(timeCountRunnable);
+        mirror.copyFrom(game);
+        commandWriter.resendState();
+        output = commandWriter;
+        state = mirror;
+    } // end method releaseGame
+
+    // runs the game's frames and touches on the logic thread
+    private final LogicThread.Target logicTarget = new LogicThread.Target() {
+        public void advance(long time) {
+            advanceGame(time);
+        } // end method advance
+
+        public void touch(float x, float y, long time, long nanos) {
+            commandWriter.setTouchNanos(nanos); // for the mirror's listener
+            touchGame(x, y, time);
+        } // end method touch
+
+        public void onIdle() {
+            // render the commands now rather than at the next frame; one
+            // posted drain at a time covers every command before it runs
+            if (drainPosted.compareAndSet(false, true))
+                uiHandler.post(drainRunnable);
+        } // end method onIdle
+    }; // end LogicThread.Target
+
+    // drains the logic thread's commands on the UI thread
+    private final Runnable drainRunnable = new Runnable() {
+        public void run() {
+            drainPosted.set(false); // commands sent from here on post again
+            drainCommands();
+        } // end method run
+    }; // end Runnable
 
-    } // end method resetGame
+    // applies the logic thread's commands to mirror, which calls
+    // gameListener to render each one
+    private void drainCommands() {
+        if (logicThread == null)
+            return;
 
-    // create the app's SoundPool for playing game audio
+        long start = System.nanoTime();
+        int[] data = commands.data();
+        boolean drained = false;
+        for (int offset; (offset = commands.peek()) >= 0; drained = true) {
+            metrics.commandHandoffs.record(
+                    System.nanoTime() - commands.stamp());
+            mirror.apply(data, offset, gameListener);
+            commands.release();
+        } // end for
+        if (drained)
+            metrics.commandDrains.record(System.nanoTime() - start);
+    } // end method drainCommands
+
+    // open the app's SoundBank and read the sound effect volume
     private void initializeSoundEffects(Context context) {
-        // initialize SoundPool to play the app's three sound effects
-        soundPool = new SoundPool.Builder()
-                .setMaxStreams(MAX_STREAMS)
-                .build();
+        // start loading sounds in the background; samples still held from
+        // before a short pause are reused without reloading
+        soundBank.open(context);
 
         // set sound effect volume
         AudioManager manager =
                 (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
         volume = manager.getStreamVolume(AudioManager.STREAM_MUSIC);
-
-        // create sound map
-        soundMap = new HashMap<Integer, Integer>(); // create new HashMap
-
-        // add each sound effect to the SoundPool
-
-        soundMap.put(1,
-                soundPool.load(context, R.raw.onevoice, SOUND_PRIORITY));
-        soundMap.put(2,
-                soundPool.load(context, R.raw.twovoice, SOUND_PRIORITY));
-        soundMap.put(3,
-                soundPool.load(context, R.raw.threevoice, SOUND_PRIORITY));
-        soundMap.put(4,
-                soundPool.load(context, R.raw.fourvoice, SOUND_PRIORITY));
-        soundMap.put(5,
-                soundPool.load(context, R.raw.fivevoice, SOUND_PRIORITY));
-        soundMap.put(6,
-                soundPool.load(context, R.raw.sixvoice, SOUND_PRIORITY));
-        soundMap.put(7,
-                soundPool.load(context, R.raw.sevenvoice, SOUND_PRIORITY));
-        soundMap.put(8,
-                soundPool.load(context, R.raw.eightvoice, SOUND_PRIORITY));
-        soundMap.put(9,
-                soundPool.load(context, R.raw.ninevoice, SOUND_PRIORITY));
-        soundMap.put(10,
-                soundPool.load(context, R.raw.tenvoice, SOUND_PRIORITY));
-        soundMap.put(11,
-                soundPool.load(context, R.raw.elevenvoice, SOUND_PRIORITY));
-        soundMap.put(12,
-                soundPool.load(context, R.raw.twelvevoice, SOUND_PRIORITY));
-        soundMap.put(13,
-                soundPool.load(context, R.raw.thirteenvoice, SOUND_PRIORITY));
-        soundMap.put(14,
-                soundPool.load(context, R.raw.fourteenvoice, SOUND_PRIORITY));
-        soundMap.put(15,
-                soundPool.load(context, R.raw.fifteenvoice, SOUND_PRIORITY));
-        soundMap.put(16,
-                soundPool.load(context, R.raw.sixteenvoice, SOUND_PRIORITY));
-        soundMap.put(17,
-                soundPool.load(context, R.raw.seventeenvoice, SOUND_PRIORITY));
-        soundMap.put(18,
-                soundPool.load(context, R.raw.eighteenvoice, SOUND_PRIORITY));
-        soundMap.put(19,
-                soundPool.load(context, R.raw.nineteenvoice, SOUND_PRIORITY));
-        soundMap.put(20,
-                soundPool.load(context, R.raw.twentyvoice, SOUND_PRIORITY));
-        soundMap.put(21,
-                soundPool.load(context, R.raw.twentyonevoice, SOUND_PRIORITY));
-        soundMap.put(22,
-                soundPool.load(context, R.raw.twentytwovoice, SOUND_PRIORITY));
-        soundMap.put(23,
-                soundPool.load(context, R.raw.twentythreevoice, SOUND_PRIORITY));
-        soundMap.put(24,
-                soundPool.load(context, R.raw.twentyfourvoice, SOUND_PRIORITY));
-        soundMap.put(25,
-                soundPool.load(context, R.raw.twentyfivevoice, SOUND_PRIORITY));
-        soundMap.put(26,
-                soundPool.load(context, R.raw.twentysixvoice, SOUND_PRIORITY));
-        soundMap.put(27,
-                soundPool.load(context, R.raw.twentysevenvoice, SOUND_PRIORITY));
-        soundMap.put(28,
-                soundPool.load(context, R.raw.twentyeightvoice, SOUND_PRIORITY));
-        soundMap.put(29,
-                soundPool.load(context, R.raw.twentyninevoice, SOUND_PRIORITY));
-        soundMap.put(30,
-                soundPool.load(context, R.raw.thirtyvoice, SOUND_PRIORITY));
-
-        soundMap.put(HIT_SOUND_ID,
-                soundPool.load(context, R.raw.hit, SOUND_PRIORITY));
-        soundMap.put(MISS_SOUND_ID,
-                soundPool.load(context, R.raw.miss, SOUND_PRIORITY));
-        soundMap.put(DISAPPEAR_SOUND_ID,
-                soundPool.load(context, R.raw.disappear, SOUND_PRIORITY));
-        soundMap.put(UHOH_SOUND_ID,
-                soundPool.load(context, R.raw.uhoh, SOUND_PRIORITY));
-        soundMap.put(APPLAUSE_SOUND_ID,
-                soundPool.load(context, R.raw.applause, SOUND_PRIORITY));
-
-
     } // end method initializeSoundEffect
 
-    // display scores and level
+    // display scores and level; only the values that changed are redrawn
     private void displayScores() {
-        timeTextView.setText("Time: " + timeLimit );
-        levelTextView.setText(
-                resources.getString(R.string.level) + " " + level);
-        totalTimeTextView.setText("Total Time: " + totalTime);
+        long start = System.nanoTime();
+        timeCounter.set(state.getTimeLimit());
+        levelCounter.set(state.getLevel());
+        totalTimeCounter.set(state.getTotalTime());
+        metrics.scoreCosts.record(System.nanoTime() - start);
     } // end function displayScores
 
-    // Runnable used to add new spots to the game at the start
-    private Runnable addSpotRunnable = new Runnable() {
-        public void run() {
-            addNewSpot(); // add a new spot to the game
-        } // end method run
-    }; // end Runnable
+    // runs the game's spawns, countdown ticks and spot expiries that are
+    // due by each frame, and redraws canvas-rendered spots
+    private final GameClock.Callback frameCallback = new GameClock.Callback() {
+        public void onFrame(long gameTime) {
+            if (logicThread != null) {
+                drainCommands(); // render the last frames' and touches'
+                logicThread.frame(gameTime);
+            } // end if
+            else
+                advanceGame(gameTime);
+
+            if (state.isGameOver())
+                clock.stop(); // resetGame starts it again
+            else if (canvasRendering && state.getSpots().size() > 0)
+                invalidate(); // draw the spots at this frame's positions
+        } // end method onFrame
+    }; // end GameClock.Callback
+
+    // runs the game's events due by a frame at gameTime; called on the
+    // thread running the game
+    private void advanceGame(long gameTime) {
+        inputTime = gameTime;
+        game.advanceTo(gameTime);
+        game.prepareHitTests(gameTime); // so touches need not index spots
+    } // end method advanceGame
+
+    // the message for a win in time seconds, listing the fastest wins in
+    // results, which include this one unless the log could not be written
+    private static String winMessage(int time, SessionStats.Result[] results) {
+        StringBuilder message =
+                new StringBuilder("You win in " + time + " seconds");
+        message.append(results.length == 0 || time <= results[0].totalTime ?
+                ", a new best!" : "!");
+
+        int shown = Math.min(WINS_SHOWN, results.length);
+        if (shown > 1) {
+            message.append(" Fastest wins:");
+            for (int i = 0; i < shown; ++i)
+                message.append(i == 0 ? " " : ", ")
+                        .append(results[i].totalTime);
+            message.append(" seconds.");
+        } // end if
 
-    private Runnable timeCountRunnable = new Runnable(){
-        public void run(){
-            if (!gameOver){
-                timeLimit -= 1;
-                totalTime += 1;
-                if (timeLimit < 0){
-                    Builder dialogBuilder = new AlertDialog.Builder(getContext());
-                    dialogBuilder.setTitle(R.string.game_over);
-                    dialogBuilder.setMessage("You lose! Would you like to play again?");
-                    dialogBuilder.setPositiveButton(R.string.reset_game,
-                            new DialogInterface.OnClickListener() {
-                                public void onClick(DialogInterface dialog, int which) {
-                                    displayScores(); // ensure that score is up to date
-                                    dialogDisplayed = false;
-                                    resetGame(); // start a new game
-                                } // end method onClick
-                            } // end DialogInterface
-                    ); // end call to dialogBuilder.setPositiveButton
-                    dialogDisplayed = true;
-                    dialogBuilder.show(); // display the reset game dialog
-                }
-                else{
-                    displayScores();
-                    timeHandler.postDelayed(timeCountRunnable, 1000);
-                }
-            }
-        }
-    };
-
-    // adds a new spot at a random location and starts its animation
-    public void addNewSpot() {
-        // choose two random coordinates for the starting and ending points
-        int x = random.nextInt(viewWidth - SPOT_DIAMETER);
-        int y = random.nextInt(viewHeight - SPOT_DIAMETER);
-        int x2 = random.nextInt(viewWidth - SPOT_DIAMETER);
-        int y2 = random.nextInt(viewHeight - SPOT_DIAMETER);
-
-        // create new spot
-        final ImageView spot =
-                (ImageView) layoutInflater.inflate(R.layout.untouched, null);
-        spot.setId(numSpotsMade);
-        spots.add(spot); // add the new spot to our list of spots
-        spot.setLayoutParams(new RelativeLayout.LayoutParams(
-                SPOT_DIAMETER, SPOT_DIAMETER));
-        spot.setImageResource(numMap.get(numSpotsMade));
-        if(numSpotsMade == 30){
-            numSpotsMade = 1;
-        }
-        else{
-            numSpotsMade += 1;
-        }
-        spot.setX(x); // set spot's starting x location
-        spot.setY(y); // set spot's starting y location
-        spot.setOnClickListener( // listens for spot being clicked
-                new OnClickListener() {
-                    public void onClick(View v) {
-                        touchedSpot(spot); // handle touched spot
+        return message.append(" Would you like to play again?").toString();
+    } // end method winMessage
+
+    // displays the dialog that ends the game with message
+    private void showGameOverDialog(String message) {
+        Builder dialogBuilder = new AlertDialog.Builder(getContext());
+        dialogBuilder.setTitle(R.string.game_over);
+        dialogBuilder.setMessage(message);
+        dialogBuilder.setPositiveButton(R.string.reset_game,
+                new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int which) {
+                        displayScores(); // ensure that score is up to date
+                        dialogDisplayed = false;
+                        resetGame(); // start a new game
                     } // end method onClick
-                } // end OnClickListener
-        ); // end call to setOnClickListener
-        relativeLayout.addView(spot); // add spot to the screen
-
-        // configure and start spot's animation
-        spot.animate().x(x2).y(y2).scaleX(SCALE_X).scaleY(SCALE_Y)
-                .setDuration(animationTime).setListener(
-                new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationStart(Animator animation) {
-                        animators.add(animation); // save for possible cancel
-                    } // end method onAnimationStart
-
-                    public void onAnimationEnd(Animator animation) {
-                        animators.remove(animation); // animation done, remove
-
-                        if (!gamePaused && spots.contains(spot)) // not touched
-                        {
-                            missedSpot(spot); // lose a life
-                        } // end if
-                    } // end method onAnimationEnd
-                } // end AnimatorListenerAdapter
-        ); // end call to setListener
+                } // end DialogInterface
+        ); // end call to dialogBuilder.setPositiveButton
+        dialogDisplayed = true;
+        dialogBuilder.show(); // display the reset game dialog
+    } // end method showGameOverDialog
+
+    // records the game's results on the thread running it, then passes
+    // its events on to output for the UI thread to render
+    private final SpotOnGame.Listener logicListener =
+            new SpotOnGame.Listener() {
+        public void onLevelStarted(int level) {
+            output.onLevelStarted(level);
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+            sessionStats.levelEnded(game, level == SpotOnGame.FINAL_LEVEL ?
+                    SessionStatsFile.WON : SessionStatsFile.COMPLETED);
+            output.onLevelCompleted(level);
+        } // end method onLevelCompleted
+
+        public void onSpotAdded(int spot) {
+            output.onSpotAdded(spot);
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+            output.onSpotMissed(spot);
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+            output.onSpotTouched(spot);
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+            output.onWrongSpot(spot);
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+            output.onBackgroundTouched();
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+            output.onScoresChanged();
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+            recordGameOver();
+            output.onGameWon();
+        } // end method onGameWon
+
+        public void onGameLost() {
+            sessionStats.levelEnded(game, SessionStatsFile.LOST);
+            recordGameOver();
+            output.onGameLost();
+        } // end method onGameLost
+    }; // end SpotOnGame.Listener
+
+    // renders the game's events and plays its sounds on the UI thread,
+    // reading the game's state from state
+    private final SpotOnGame.Listener gameListener = new SpotOnGame.Listener() {
+        public void onLevelStarted(int level) {
+            // decode the level's numerals and voices before its first spot
+            // is added, SPOT_DELAY ms from now, and unload the last level's
+            // voices once the one touched last has finished playing; the
+            // first level's numerals wait for deferredStartup
+            if (startedUp)
+                numeralCache.prefetch(state.getNumOn(), state.getNumGoal());
+            soundBank.setWindow(state.getNumOn(),
+                    state.getNumGoal() + VOICE_PREFETCH);
+        } // end method onLevelStarted
+
+        public void onLevelCompleted(int level) {
+            // recorded by logicListener
+        } // end method onLevelCompleted
+
+        public void onSpotAdded(int spot) {
+            long start = System.nanoTime();
+            addNewSpot(spot);
+            metrics.spawnCosts.record(System.nanoTime() - start);
+        } // end method onSpotAdded
+
+        public void onSpotMissed(int spot) {
+            // the game counts the miss; the spot stays where it stopped
+            spotViews.missed(state.getSpots().slot(spot));
+        } // end method onSpotMissed
+
+        public void onSpotTouched(int spot) {
+            SpotStore spots = state.getSpots();
+            // a command may be rendered after later touches were made
+            long touched = state == mirror ? mirror.getTouchNanos() :
+                    touchNanos;
+            if (soundBank.play(spots.getNumber(spots.slot(spot)), volume))
+                metrics.touchToSound.record(System.nanoTime() - touched);
+            removeSpot(spot);
+        } // end method onSpotTouched
+
+        public void onWrongSpot(int spot) {
+            soundBank.play(UHOH_SOUND_ID, volume);
+        } // end method onWrongSpot
+
+        public void onBackgroundTouched() {
+            soundBank.play(MISS_SOUND_ID, volume); // the scores are unchanged
+        } // end method onBackgroundTouched
+
+        public void onScoresChanged() {
+            displayScores();
+        } // end method onScoresChanged
+
+        public void onGameWon() {
+            soundBank.play(APPLAUSE_SOUND_ID, volume);
+            displayScores();
+            dialogDisplayed = true; // shown once the fastest wins are read
+
+            // logicListener flushed this win's record before this call,
+            // so the fastest wins read after it include this game
+            final int time = state.getTotalTime();
+            sessionStats.readTop(SessionStatsFile.GAME_TABLE,
+                    new SessionStats.TopResultsCallback() {
+                        public void onTopResults(int table,
+                                SessionStats.Result[] results) {
+                            showGameOverDialog(winMessage(time, results));
+                        } // end method onTopResults
+                    }); // end SessionStats.TopResultsCallback
+        } // end method onGameWon
+
+        public void onGameLost() {
+            showGameOverDialog("You lose! Would you like to play again?");
+        } // end method onGameLost
+    }; // end SpotOnGame.Listener
+
+    // ends the game's recording with its final state and saves it; called
+    // on the thread running the game
+    private void recordGameOver() {
+        recorder.recordGameOver(inputTime, game);
+        saveRecording();
+    } // end method recordGameOver
+
+    // displays a spot the game just added and starts its animation
+    private void addNewSpot(int spot) {
+        spotShown();
+        if (canvasRendering)
+            return; // onDraw draws the spot from the next frame on
+
+        SpotStore spots = state.getSpots();
+        spotViews.show(spots, spots.slot(spot), clock.now());
     } // end addNewSpot method
 
-    // called when the user touches the screen, but not a spot
+    // displays every spot in play, as restored or resized, where it is now
+    private void showSpots() {
+        invalidate(); // canvas-rendered spots are drawn where they are
+        if (state.getSpots().size() > 0)
+            spotShown();
+        if (canvasRendering)
+            return;
+
+        spotViews.hideAll();
+        SpotStore spots = state.getSpots();
+        long now = clock.now();
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot))
+            spotViews.show(spots, slot, now);
+    } // end method showSpots
+
+    // inflates, shows and recycles the ImageViews spotViews keeps
+    private final SpotViews.Host<ImageView> spotViewHost =
+            new SpotViews.Host<ImageView>() {
+        public ImageView create() {
+            ImageView view = (ImageView)
+                    layoutInflater.inflate(R.layout.untouched, null);
+            view.setLayoutParams(new RelativeLayout.LayoutParams(
+                    SPOT_DIAMETER, SPOT_DIAMETER));
+            view.setClickable(false); // onTouchEvent hit tests every touch
+            return view;
+        } // end method create
+
+        public boolean show(ImageView view, SpotStore spots, int slot,
+                long now) {
+            return showSpot(view, spots, slot, now);
+        } // end method show
+
+        public void hide(ImageView view) {
+            relativeLayout.removeView(view);
+            view.animate().cancel(); // stop any animation still in progress
+            view.setScaleX(1f); // undo the previous spot's shrinking
+            view.setScaleY(1f);
+            view.setImageDrawable(null); // release the numeral image
+        } // end method hide
+    }; // end SpotViews.Host
+
+    // displays the spot in slot of spots in view at its position at time
+    // now and animates it along the rest of its trajectory; returns
+    // whether it is animated
+    private boolean showSpot(ImageView view, SpotStore spots, int slot,
+            long now) {
+        view.setImageBitmap(numeralCache.get(spots.getNumber(slot)));
+
+        // a new spot starts at its start location and full size; a
+        // restored one continues from where it was
+        float fraction = spots.isMissed(slot) ? 1f : spots.fraction(slot, now);
+        float t = SpotStore.interpolate(fraction);
+        view.setX(spots.x(slot, t)); // set spot's current x location
+        view.setY(spots.y(slot, t)); // set spot's current y location
+        view.setScaleX(spots.scale(t));
+        view.setScaleY(spots.scale(t));
+        relativeLayout.addView(view); // add spot to the screen
+        if (fraction >= 1f)
+            return false; // a missed spot stays where it stopped
+
+        // configure and start spot's animation over the time it has left
+        view.animate().x(spots.getEndX(slot)).y(spots.getEndY(slot))
+                .scaleX(spots.getEndScale()).scaleY(spots.getEndScale())
+                .setInterpolator(fraction > 0f ?
+                        new RemainingInterpolator(fraction) : EASE)
+                .setDuration(Math.round(
+                        spots.getDuration(slot) * (1f - fraction)));
+        return true;
+    } // end method showSpot
+
+    // the part of the default easing after a fraction of the animation has
+    // already run, rescaled to run from 0 to 1
+    private static class RemainingInterpolator implements TimeInterpolator {
+        private final float start; // fraction already run
+        private final float eased; // eased progress at start
+
+        RemainingInterpolator(float start) {
+            this.start = start;
+            eased = SpotStore.interpolate(start);
+        } // end RemainingInterpolator constructor
+
+        @Override
+        public float getInterpolation(float input) {
+            float t = SpotStore.interpolate(start + (1f - start) * input);
+            return (t - eased) / (1f - eased);
+        } // end method getInterpolation
+    } // end class RemainingInterpolator
+
+    // draws every spot at its current animated position when canvas
+    // rendering is enabled
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (!startup.has("firstDraw")) {
+            startup.mark("firstDraw");
+            post(deferredStartup); // after this frame is on screen
+        } // end if
+
+        SpotStore spots = state.getSpots();
+        if (!canvasRendering || gamePaused || spots.size() == 0)
+            return;
+
+        long now = clock.now();
+        float half = SPOT_DIAMETER / 2f;
+
+        // bottom to top, in the order the spots were added
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot)) {
+            float t = spots.progress(slot, now);
+            float scale = spots.scale(t);
+            Bitmap numeral = numeralCache.get(spots.getNumber(slot));
+
+            // scale about the spot's center, as View.animate() does, and
+            // center the numeral in the spot, as FIT_CENTER does
+            float halfWidth = numeral.getWidth() * scale / 2f;
+            float halfHeight = numeral.getHeight() * scale / 2f;
+            float centerX = spots.x(slot, t) + half;
+            float centerY = spots.y(slot, t) + half;
+            spotBounds.set(centerX - halfWidth, centerY - halfHeight,
+                    centerX + halfWidth, centerY + halfHeight);
+            canvas.drawBitmap(numeral, null, spotBounds, null);
+        } // end for
+    } // end method onDraw
+
+    // called for every touch on the playing field; spots are not
+    // clickable, so this resolves which spot, if any, was touched
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        // play the missed sound
-        if (soundPool != null)
-            soundPool.play(soundMap.get(MISS_SOUND_ID), volume, volume,
-                    SOUND_PRIORITY, 0, 1f);
-        displayScores(); // update scores/level on screen
+        if (event.getActionMasked() != MotionEvent.ACTION_DOWN)
+            return true; // only the initial touch counts
+
+        // event times are uptime milliseconds, on the System.nanoTime clock
+        touchNanos = event.getEventTime() * 1000000;
+        long now = clock.now();
+        if (logicThread != null)
+            logicThread.touch(event.getX(), event.getY(), now, touchNanos);
+        else
+            touchGame(event.getX(), event.getY(), now);
         return true;
     } // end method onTouchEvent
 
-    // called when a spot is touched
-    private void touchedSpot(ImageView spot) {
-        if(spot.getId() != numOn){
-            soundPool.play(soundMap.get(UHOH_SOUND_ID), volume, volume, SOUND_PRIORITY, 0, 1f);
-            return;
-        }
-
-        spot.setId(idChanger);
-        idChanger += 1;
-        relativeLayout.removeView(spot); // remove touched spot from screen
-        spots.remove(spot); // remove old spot from list
-
-        if (soundPool != null)
-            soundPool.play(soundMap.get(numOn), volume, volume,
-                    SOUND_PRIORITY, 0, 1f);
-        numOn += 1;
-        if (numOn > numGoal) {
-            switch (level){
-                case 1:
-                    timeLimit = 55;
-                    break;
-                case 2:
-                    timeLimit = 50;
-                    break;
-            }
-            if(level == 3){
-                timeLimit = 45;
-                ++level;
-                numGoal = random.nextInt(21) + 10;
-                numSpotsMade = numGoal - 9;
-                numOn = numGoal - 9;
-                for (int i = 1; i <= INITIAL_SPOTS; ++i)
-                    spotHandler.postDelayed(addSpotRunnable, i * SPOT_DELAY);
-            }
-            else if(level == 4){
-                gameOver = true;
-                soundPool.play(soundMap.get(APPLAUSE_SOUND_ID), volume, volume, SOUND_PRIORITY, 0, 1f);
-                Builder dialogBuilder = new AlertDialog.Builder(getContext());
-                dialogBuilder.setTitle(R.string.game_over);
-                dialogBuilder.setMessage("You win! Would you like to play again?");
-                dialogBuilder.setPositiveButton(R.string.reset_game,
-                        new DialogInterface.OnClickListener() {
-                            public void onClick(DialogInterface dialog, int which) {
-                                displayScores(); // ensure that score is up to date
-                                dialogDisplayed = false;
-                                resetGame(); // start a new game
-                            } // end method onClick
-                        } // end DialogInterface
-                ); // end call to dialogBuilder.setPositiveButton
-                dialogDisplayed = true;
-                dialogBuilder.show(); // display the reset game dialog
-            }
-            else{
-                numGoal += 10;
-                ++level;
-                for (int i = 1; i <= INITIAL_SPOTS; ++i)
-                    spotHandler.postDelayed(addSpotRunnable, i * SPOT_DELAY);
-            }
-            displayScores();
-        } // end if
+    // applies a touch at (x, y) at game time now; called on the thread
+    // running the game
+    private void touchGame(float x, float y, long now) {
+        // run the events due before the touch, so that it is resolved the
+        // same way whatever the frame timing, and record it for replay
+        inputTime = now;
+        game.advanceTo(now);
+        int spot = game.findSpot(x, y, now);
+        recorder.recordTouch(now, x, y, spot != SpotStore.NONE);
+        if (spot != SpotStore.NONE)
+            touchedSpot(spot, now);
+        else
+            game.touchBackground(); // calls onBackgroundTouched
+    } // end method touchGame
 
+    // called when a spot is touched
+    private void touchedSpot(int spot, long now) {
+        game.touchSpot(spot, now); // calls onSpotTouched if it was numOn
     } // end method touchedSpot
 
-    // called when a spot finishes its animation without being touched
-    public void missedSpot(ImageView spot) {
-        if (gameOver) // if the game is already over, exit
+    // removes a touched spot from the screen
+    private void removeSpot(int spot) {
+        if (canvasRendering) {
+            invalidate(); // stop drawing the touched spot
             return;
+        } // end if
 
-        // if the game has been lost
-        // end else
-    } // end method missedSpot
+        // remove the touched spot and reuse its view for a later numeral
+        spotViews.hide(state.getSpots().slot(spot));
+    } // end method removeSpot
 } // end class SpotOnView
-
-
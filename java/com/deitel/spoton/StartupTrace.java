@@ -0,0 +1,73 @@
+// StartupTrace.java
+// Systrace sections and timestamps for the app's cold start
+package com.deitel.spoton;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+// Sections show up in systrace and Perfetto captures of the app; marks
+// are milestones timed in ms from when the process started (where the
+// platform reports it, API level 24+, and otherwise from when the trace
+// was constructed), kept for the metrics dump. Only used on the UI thread.
+class StartupTrace {
+    private static final int MAX_MARKS = 16;
+
+    private final long origin; // elapsedRealtimeNanos the times start from
+    private final boolean fromProcessStart; // whether origin is the process'
+    private final String[] names = new String[MAX_MARKS];
+    private final long[] times = new long[MAX_MARKS]; // ns after origin
+    private int count;
+
+    StartupTrace() {
+        fromProcessStart = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+        origin = fromProcessStart ?
+                Process.getStartElapsedRealtime() * 1000000L :
+                SystemClock.elapsedRealtimeNanos();
+    } // end StartupTrace constructor
+
+    // starts a section called name; sections nest, and each must be ended
+    // on the thread that began it
+    void begin(String name) {
+        Trace.beginSection(name);
+    } // end method begin
+
+    // ends the innermost section begun
+    void end() {
+        Trace.endSection();
+    } // end method end
+
+    // records that milestone name was reached now, unless it already was
+    void mark(String name) {
+        if (count == MAX_MARKS || has(name))
+            return;
+
+        names[count] = name;
+        times[count] = SystemClock.elapsedRealtimeNanos() - origin;
+        ++count;
+    } // end method mark
+
+    // whether milestone name was reached
+    boolean has(String name) {
+        return getMillis(name) >= 0;
+    } // end method has
+
+    // ms from the origin to milestone name, or -1 if it was not reached
+    double getMillis(String name) {
+        for (int i = 0; i < count; ++i)
+            if (names[i].equals(name))
+                return times[i] / 1e6;
+        return -1;
+    } // end method getMillis
+
+    // the milestones in the order they were reached
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("startup from ");
+        text.append(fromProcessStart ? "process" : "view");
+        for (int i = 0; i < count; ++i)
+            text.append(String.format(" %s=%.1fms", names[i], times[i] / 1e6));
+        return text.toString();
+    } // end method toString
+} // end class StartupTrace
@@ -0,0 +1,156 @@
+// CommandWriter.java
+// Sends a game's events to the UI thread's GameMirror
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+// The listener a game's events go to when it runs on its own thread: each
+// event becomes a command on ring, preceded by a STATE command if the
+// game's counters changed since the last one. Called only on the thread
+// running the game, which is the ring's producer. When the ring is full
+// the writer waits for the UI thread to drain it rather than lose a
+// command, which would put the mirror out of step.
+public class CommandWriter implements SpotOnGame.Listener {
+    private final GameState game;
+    private final SpscRing ring;
+    private final int[] sent = new int[GameMirror.COUNTERS]; // last STATE
+    private boolean sentAny; // whether sent holds anything yet
+    private final int[] current = new int[GameMirror.COUNTERS];
+    private long stalls; // times the ring was found full
+    private long touchNanos; // System.nanoTime of the touch being handled
+
+    // constructs a writer of game's events to ring, whose records must be
+    // GameMirror.COMMAND_SIZE ints
+    public CommandWriter(GameState game, SpscRing ring) {
+        this.game = game;
+        this.ring = ring;
+    } // end CommandWriter constructor
+
+    // offset of a claimed record, after sending the counters if needed
+    private int begin(int kind) {
+        GameMirror.copyState(game, current, 0);
+        if (!sentAny || !Arrays.equals(current, sent)) {
+            int offset = claim();
+            int[] data = ring.data();
+            data[offset] = GameMirror.STATE;
+            System.arraycopy(current, 0, data, offset + 1,
+                    GameMirror.COUNTERS);
+            ring.publish();
+            System.arraycopy(current, 0, sent, 0, GameMirror.COUNTERS);
+            sentAny = true;
+        } // end if
+
+        int offset = claim();
+        ring.data()[offset] = kind;
+        return offset;
+    } // end method begin
+
+    // claims a record, waiting for the consumer while the ring is full
+    private int claim() {
+        int offset;
+        while ((offset = ring.claim()) < 0) {
+            ++stalls;
+            Thread.yield();
+        } // end while
+        return offset;
+    } // end method claim
+
+    // sends a command with no arguments
+    private void send(int kind) {
+        begin(kind);
+        ring.publish();
+    } // end method send
+
+    // sends a command with one argument
+    private void send(int kind, int argument) {
+        int offset = begin(kind);
+        ring.data()[offset + 1] = argument;
+        ring.publish();
+    } // end method send
+
+    // sets when, on the System.nanoTime clock, the touch the game is about
+    // to handle happened; SPOT_TOUCHED commands carry it to the mirror
+    public void setTouchNanos(long nanos) {
+        touchNanos = nanos;
+    } // end method setTouchNanos
+
+    // makes the next event send the counters whatever they are; called
+    // when the mirror was copied from a game changed outside this writer
+    public void resendState() {
+        sentAny = false;
+    } // end method resendState
+
+    // number of times the writer found the ring full and waited
+    public long getStallCount() {
+        return stalls;
+    } // end method getStallCount
+
+    @Override
+    public void onLevelStarted(int level) {
+        send(GameMirror.LEVEL_STARTED, level);
+    } // end method onLevelStarted
+
+    @Override
+    public void onLevelCompleted(int level) {
+        send(GameMirror.LEVEL_COMPLETED, level);
+    } // end method onLevelCompleted
+
+    @Override
+    public void onSpotAdded(int spot) {
+        SpotStore spots = game.getSpots();
+        int slot = spots.slot(spot);
+        int offset = begin(GameMirror.SPOT_ADDED);
+        int[] data = ring.data();
+        long start = spots.startTime[slot];
+        data[offset + 1] = spot;
+        data[offset + 2] = spots.number[slot];
+        data[offset + 3] = Float.floatToRawIntBits(spots.startX[slot]);
+        data[offset + 4] = Float.floatToRawIntBits(spots.startY[slot]);
+        data[offset + 5] = Float.floatToRawIntBits(spots.endX[slot]);
+        data[offset + 6] = Float.floatToRawIntBits(spots.endY[slot]);
+        data[offset + 7] = (int) (start >>> 32);
+        data[offset + 8] = (int) start;
+        data[offset + 9] = spots.duration[slot];
+        ring.publish();
+    } // end method onSpotAdded
+
+    @Override
+    public void onSpotMissed(int spot) {
+        send(GameMirror.SPOT_MISSED, spot);
+    } // end method onSpotMissed
+
+    @Override
+    public void onSpotTouched(int spot) {
+        int offset = begin(GameMirror.SPOT_TOUCHED);
+        int[] data = ring.data();
+        data[offset + 1] = spot;
+        data[offset + 2] = (int) (touchNanos >>> 32);
+        data[offset + 3] = (int) touchNanos;
+        ring.publish();
+    } // end method onSpotTouched
+
+    @Override
+    public void onWrongSpot(int spot) {
+        send(GameMirror.WRONG_SPOT, spot);
+    } // end method onWrongSpot
+
+    @Override
+    public void onBackgroundTouched() {
+        send(GameMirror.BACKGROUND_TOUCHED);
+    } // end method onBackgroundTouched
+
+    @Override
+    public void onScoresChanged() {
+        send(GameMirror.SCORES_CHANGED);
+    } // end method onScoresChanged
+
+    @Override
+    public void onGameWon() {
+        send(GameMirror.GAME_WON);
+    } // end method onGameWon
+
+    @Override
+    public void onGameLost() {
+        send(GameMirror.GAME_LOST);
+    } // end method onGameLost
+} // end class CommandWriter
@@ -0,0 +1,207 @@
+// GameMirror.java
+// The UI thread's copy of a game that another thread runs
+package com.deitel.spoton.engine;
+
+// A CommandWriter on the thread running the game turns each of the game's
+// events into a command record on an SpscRing; the UI thread applies them
+// here in order, which updates this copy and passes the event on to the
+// UI's listener. A command carries the spot data the UI needs, and is
+// preceded by the game's counters whenever they changed, so a listener
+// reading this mirror sees what it would have read from the game when the
+// event happened. Spots are added and removed in the game's order from a
+// store that started as an exact copy, so they get the same handles.
+public class GameMirror implements GameState {
+    // ints in a command record: a kind and up to 10 arguments
+    public static final int COMMAND_SIZE = 11;
+
+    // command kinds
+    static final int STATE = 1; // counters, as in copyState
+    static final int LEVEL_STARTED = 2; // level
+    static final int LEVEL_COMPLETED = 3; // level
+    // handle, number, start x and y and end x and y as float bits, start
+    // time's high and low halves, duration
+    static final int SPOT_ADDED = 4;
+    static final int SPOT_MISSED = 5; // handle
+    // handle, touch's System.nanoTime's high and low halves
+    static final int SPOT_TOUCHED = 6;
+    static final int WRONG_SPOT = 7; // handle
+    static final int BACKGROUND_TOUCHED = 8;
+    static final int SCORES_CHANGED = 9;
+    static final int GAME_WON = 10;
+    static final int GAME_LOST = 11;
+
+    // indices of the counters in a STATE record and in copies of them
+    static final int LEVEL = 0;
+    static final int NUM_ON = 1;
+    static final int NUM_GOAL = 2;
+    static final int TIME_LIMIT = 3;
+    static final int TOTAL_TIME = 4;
+    static final int LEVEL_TIME_LIMIT = 5;
+    static final int WRONG_TOUCHES = 6;
+    static final int BACKGROUND_TOUCHES = 7;
+    static final int MISSED_SPOTS = 8;
+    static final int FLAGS = 9; // 1 if the game is over, 2 if it was won
+    static final int COUNTERS = 10;
+
+    private final SpotStore spots =
+            new SpotStore(2 * SpotOnGame.INITIAL_SPOTS, SpotOnGame.END_SCALE);
+    private final int[] counters = new int[COUNTERS];
+    private long touchNanos; // of the last SPOT_TOUCHED applied
+
+    // makes this mirror an exact copy of game; game's thread must not be
+    // running it
+    public void copyFrom(SpotOnGame game) {
+        spots.copyFrom(game.getSpots());
+        copyState(game, counters, 0);
+    } // end method copyFrom
+
+    // applies the command at offset in data and calls listener for its
+    // event; throws IllegalStateException if the command does not fit
+    // this copy, which means a command was lost or applied twice
+    public void apply(int[] data, int offset, SpotOnGame.Listener listener) {
+        int argument = data[offset + 1];
+        switch (data[offset]) {
+            case STATE:
+                System.arraycopy(data, offset + 1, counters, 0, COUNTERS);
+                break;
+            case LEVEL_STARTED:
+                listener.onLevelStarted(argument);
+                break;
+            case LEVEL_COMPLETED:
+                listener.onLevelCompleted(argument);
+                break;
+            case SPOT_ADDED:
+                int spot = spots.add(data[offset + 2],
+                        Float.intBitsToFloat(data[offset + 3]),
+                        Float.intBitsToFloat(data[offset + 4]),
+                        Float.intBitsToFloat(data[offset + 5]),
+                        Float.intBitsToFloat(data[offset + 6]),
+                        (long) data[offset + 7] << 32 |
+                                (data[offset + 8] & 0xffffffffL),
+                        data[offset + 9]);
+                if (spot != argument)
+                    throw new IllegalStateException("Mirror out of step");
+                listener.onSpotAdded(spot);
+                break;
+            case SPOT_MISSED:
+                spots.state[slot(argument)] = SpotStore.STOPPED;
+                listener.onSpotMissed(argument);
+                break;
+            case SPOT_TOUCHED:
+                int slot = slot(argument);
+                touchNanos = (long) data[offset + 2] << 32 |
+                        (data[offset + 3] & 0xffffffffL);
+                listener.onSpotTouched(argument);
+                spots.remove(slot); // as the game does after the call
+                break;
+            case WRONG_SPOT:
+                slot(argument);
+                listener.onWrongSpot(argument);
+                break;
+            case BACKGROUND_TOUCHED:
+                listener.onBackgroundTouched();
+                break;
+            case SCORES_CHANGED:
+                listener.onScoresChanged();
+                break;
+            case GAME_WON:
+                listener.onGameWon();
+                break;
+            case GAME_LOST:
+                listener.onGameLost();
+                break;
+            default:
+                throw new IllegalStateException(
+                        "Unknown command " + data[offset]);
+        } // end switch
+    } // end method apply
+
+    // slot of the spot with handle, which must be in play
+    private int slot(int handle) {
+        int slot = spots.slot(handle);
+        if (slot == SpotStore.NONE)
+            throw new IllegalStateException("Mirror out of step");
+        return slot;
+    } // end method slot
+
+    // when, on the System.nanoTime clock, the touch that removed the spot
+    // in the last SPOT_TOUCHED applied happened
+    public long getTouchNanos() {
+        return touchNanos;
+    } // end method getTouchNanos
+
+    // writes game's counters to data from offset, in STATE order
+    static void copyState(GameState game, int[] data, int offset) {
+        data[offset + LEVEL] = game.getLevel();
+        data[offset + NUM_ON] = game.getNumOn();
+        data[offset + NUM_GOAL] = game.getNumGoal();
+        data[offset + TIME_LIMIT] = game.getTimeLimit();
+        data[offset + TOTAL_TIME] = game.getTotalTime();
+        data[offset + LEVEL_TIME_LIMIT] = game.getLevelTimeLimit();
+        data[offset + WRONG_TOUCHES] = game.getWrongTouches();
+        data[offset + BACKGROUND_TOUCHES] = game.getBackgroundTouches();
+        data[offset + MISSED_SPOTS] = game.getMissedSpots();
+        data[offset + FLAGS] = (game.isGameOver() ? 1 : 0) |
+                (game.isGameWon() ? 2 : 0);
+    } // end method copyState
+
+    @Override
+    public SpotStore getSpots() {
+        return spots;
+    } // end method getSpots
+
+    @Override
+    public int getLevel() {
+        return counters[LEVEL];
+    } // end method getLevel
+
+    @Override
+    public int getNumOn() {
+        return counters[NUM_ON];
+    } // end method getNumOn
+
+    @Override
+    public int getNumGoal() {
+        return counters[NUM_GOAL];
+    } // end method getNumGoal
+
+    @Override
+    public int getTimeLimit() {
+        return counters[TIME_LIMIT];
+    } // end method getTimeLimit
+
+    @Override
+    public int getTotalTime() {
+        return counters[TOTAL_TIME];
+    } // end method getTotalTime
+
+    @Override
+    public int getLevelTimeLimit() {
+        return counters[LEVEL_TIME_LIMIT];
+    } // end method getLevelTimeLimit
+
+    @Override
+    public boolean isGameOver() {
+        return (counters[FLAGS] & 1) != 0;
+    } // end method isGameOver
+
+    @Override
+    public boolean isGameWon() {
+        return (counters[FLAGS] & 2) != 0;
+    } // end method isGameWon
+
+    @Override
+    public int getWrongTouches() {
+        return counters[WRONG_TOUCHES];
+    } // end method getWrongTouches
+
+    @Override
+    public int getBackgroundTouches() {
+        return counters[BACKGROUND_TOUCHES];
+    } // end method getBackgroundTouches
+
+    @Override
+    public int getMissedSpots() {
+        return counters[MISSED_SPOTS];
+    } // end method getMissedSpots
+} // end class GameMirror
@@ -0,0 +1,50 @@
+// GameRandom.java
+// java.util.Random whose state can be saved and restored
+package com.deitel.spoton.engine;
+
+import java.util.Random;
+
+// Produces exactly the sequence java.util.Random produces for the same
+// seed (the same 48-bit linear congruential generator), but exposes the
+// generator's state so a game snapshot can continue the sequence.
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // set by setSeed, which Random's constructors call
+
+    // constructs a generator with an unpredictable seed
+    public GameRandom() {
+        super();
+    } // end GameRandom constructor
+
+    // constructs a generator with the given seed
+    public GameRandom(long seed) {
+        super(seed);
+    } // end GameRandom constructor
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed); // also clears Random's cached Gaussian
+        state = (seed ^ MULTIPLIER) & MASK;
+    } // end method setSeed
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    } // end method next
+
+    // the generator's current state
+    public long getState() {
+        return state;
+    } // end method getState
+
+    // continues the sequence from a state returned by getState
+    public void setState(long state) {
+        this.state = state & MASK;
+    } // end method setState
+} // end class GameRandom
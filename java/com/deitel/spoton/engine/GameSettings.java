@@ -0,0 +1,74 @@
+// GameSettings.java
+// The difficulty settings of a SpotOn game
+package com.deitel.spoton.engine;
+
+// How long spots move, how quickly they are added, how many make up a
+// level and how long each level lasts. The app plays DEFAULT; other
+// settings are for simulating how changes would play. Settings are not
+// part of a game's snapshot, so a snapshot must be restored into a game
+// with the settings it was saved from.
+public final class GameSettings {
+    // the game as designed
+    public static final GameSettings DEFAULT = new GameSettings(
+            SpotOnGame.INITIAL_ANIMATION_DURATION, SpotOnGame.SPOT_DELAY,
+            SpotOnGame.INITIAL_SPOTS, new int[] {60, 55, 50, 45});
+
+    private final int animationDuration; // ms each spot moves
+    private final int spotDelay; // ms between added spots
+    private final int spotsPerLevel; // spots added, and touched, per level
+    private final int[] timeLimits; // seconds per level; index 0 unused
+
+    // constructs settings whose levels 1 to FINAL_LEVEL last the seconds
+    // in timeLimits; throws IllegalArgumentException if a value is out of
+    // range. The numbers of three levels must fit below MAX_NUMBER, so
+    // spotsPerLevel is at most INITIAL_SPOTS
+    public GameSettings(int animationDuration, int spotDelay,
+            int spotsPerLevel, int[] timeLimits) {
+        if (animationDuration <= 0 || spotDelay <= 0)
+            throw new IllegalArgumentException("Times must be positive");
+        if (spotsPerLevel < 1 || spotsPerLevel > SpotOnGame.INITIAL_SPOTS)
+            throw new IllegalArgumentException(
+                    "Spots per level must be from 1 to " +
+                    SpotOnGame.INITIAL_SPOTS);
+        if (timeLimits.length != SpotOnGame.FINAL_LEVEL)
+            throw new IllegalArgumentException("Need a time limit for " +
+                    SpotOnGame.FINAL_LEVEL + " levels");
+
+        this.animationDuration = animationDuration;
+        this.spotDelay = spotDelay;
+        this.spotsPerLevel = spotsPerLevel;
+        this.timeLimits = new int[SpotOnGame.FINAL_LEVEL + 1];
+        for (int level = 1; level <= SpotOnGame.FINAL_LEVEL; ++level) {
+            if (timeLimits[level - 1] <= 0)
+                throw new IllegalArgumentException(
+                        "Time limits must be positive");
+            this.timeLimits[level] = timeLimits[level - 1];
+        } // end for
+    } // end GameSettings constructor
+
+    public int getAnimationDuration() {
+        return animationDuration;
+    } // end method getAnimationDuration
+
+    public int getSpotDelay() {
+        return spotDelay;
+    } // end method getSpotDelay
+
+    public int getSpotsPerLevel() {
+        return spotsPerLevel;
+    } // end method getSpotsPerLevel
+
+    // seconds level lasts, for level 1 to FINAL_LEVEL
+    public int getTimeLimit(int level) {
+        return timeLimits[level];
+    } // end method getTimeLimit
+
+    @Override
+    public String toString() {
+        StringBuilder limits = new StringBuilder();
+        for (int level = 1; level <= SpotOnGame.FINAL_LEVEL; ++level)
+            limits.append(level == 1 ? "" : "/").append(timeLimits[level]);
+        return "animation=" + animationDuration + "ms delay=" + spotDelay +
+                "ms spots=" + spotsPerLevel + " limits=" + limits + "s";
+    } // end method toString
+} // end class GameSettings
@@ -0,0 +1,38 @@
+// GameState.java
+// What the UI reads from a SpotOn game to draw it
+package com.deitel.spoton.engine;
+
+// Implemented by SpotOnGame itself and by GameMirror, the copy the UI
+// thread reads while another thread runs the game. Spots are identified
+// by the same handles in both.
+public interface GameState {
+    // the spots in play; read-only for callers outside the engine
+    SpotStore getSpots();
+
+    int getLevel();
+
+    // number the player must touch next
+    int getNumOn();
+
+    // last number of the current level
+    int getNumGoal();
+
+    // seconds left in the current level
+    int getTimeLimit();
+
+    // seconds played in the whole game
+    int getTotalTime();
+
+    // seconds the current level's time limit started from
+    int getLevelTimeLimit();
+
+    boolean isGameOver();
+
+    boolean isGameWon();
+
+    int getWrongTouches();
+
+    int getBackgroundTouches();
+
+    int getMissedSpots();
+} // end interface GameState
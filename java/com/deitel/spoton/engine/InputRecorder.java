@@ -0,0 +1,160 @@
+// InputRecorder.java
+// Records a game's inputs so that InputReplay can play it again
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+// A recording starts with MAGIC and VERSION, followed by one entry per
+// input: its kind, then the game time in ms since the previous entry as a
+// zigzag varint, then the kind's data. A game is fully determined by its
+// seed or starting snapshot, its field sizes and the times and positions
+// of its touches, so nothing else is recorded; GAME_OVER entries carry a
+// digest of the final state against which a replay is checked.
+public class InputRecorder {
+    static final int MAGIC = 0x53505243; // "SPRC"
+    static final int VERSION = 2;
+
+    // kinds of entry and their data
+    static final byte RESET = 1; // seed: long
+    static final byte RESTORE = 2; // snapshot length: varint, snapshot
+    static final byte FIELD_SIZE = 3; // width, height: varints
+    static final byte SPOT_TOUCH = 4; // x, y: floats; a spot was hit
+    static final byte BACKGROUND_TOUCH = 5; // x, y: floats; none was hit
+    static final byte PAUSE = 6; // no data
+    static final byte RESUME = 7; // no data
+    static final byte GAME_OVER = 8; // digest: int
+
+    private static final int INITIAL_CAPACITY = 1024; // bytes
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size; // bytes recorded
+    private long lastTime; // game time of the last entry
+    private boolean recording; // a game has started and not ended
+
+    // constructs an empty recording
+    public InputRecorder() {
+        clear();
+    } // end InputRecorder constructor
+
+    // discards everything recorded
+    public void clear() {
+        size = 0;
+        lastTime = 0;
+        recording = false;
+        putInt(MAGIC);
+        putInt(VERSION);
+    } // end method clear
+
+    // whether a game has started and not yet ended
+    public boolean isRecording() {
+        return recording;
+    } // end method isRecording
+
+    // whether nothing but the header has been recorded
+    public boolean isEmpty() {
+        return size == 8;
+    } // end method isEmpty
+
+    // a game was started by reset(time, seed)
+    public void recordReset(long time, long seed) {
+        putEntry(RESET, time);
+        putLong(seed);
+        recording = true;
+    } // end method recordReset
+
+    // a game was continued by restoreState(snapshot, time)
+    public void recordRestore(long time, byte[] snapshot) {
+        putEntry(RESTORE, time);
+        putVarint(snapshot.length);
+        ensureCapacity(snapshot.length);
+        System.arraycopy(snapshot, 0, buffer, size, snapshot.length);
+        size += snapshot.length;
+        recording = true;
+    } // end method recordRestore
+
+    // the field was resized by setFieldSize(width, height)
+    public void recordFieldSize(long time, int width, int height) {
+        putEntry(FIELD_SIZE, time);
+        putVarint(width);
+        putVarint(height);
+    } // end method recordFieldSize
+
+    // the field was touched at (x, y) at time, after advanceTo(time);
+    // hitSpot tells whether findSpot found a spot there
+    public void recordTouch(long time, float x, float y, boolean hitSpot) {
+        putEntry(hitSpot ? SPOT_TOUCH : BACKGROUND_TOUCH, time);
+        putInt(Float.floatToIntBits(x));
+        putInt(Float.floatToIntBits(y));
+    } // end method recordTouch
+
+    // game time stopped at time
+    public void recordPause(long time) {
+        putEntry(PAUSE, time);
+    } // end method recordPause
+
+    // game time continued from time
+    public void recordResume(long time) {
+        putEntry(RESUME, time);
+    } // end method recordResume
+
+    // game ended at time
+    public void recordGameOver(long time, SpotOnGame game) {
+        putEntry(GAME_OVER, time);
+        putInt(digest(game));
+        recording = false;
+    } // end method recordGameOver
+
+    // number of bytes recorded
+    public int size() {
+        return size;
+    } // end method size
+
+    // a copy of the recording
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    } // end method toByteArray
+
+    // hash of everything that determines how game continues, independent
+    // of the time at which it is taken
+    static int digest(SpotOnGame game) {
+        return Arrays.hashCode(game.saveState(0));
+    } // end method digest
+
+    private void putEntry(byte kind, long time) {
+        ensureCapacity(1);
+        buffer[size++] = kind;
+        long delta = time - lastTime;
+        putVarint((delta << 1) ^ (delta >> 63)); // zigzag: small if negative
+        lastTime = time;
+    } // end method putEntry
+
+    // writes value 7 bits at a time, low bits first, with the high bit set
+    // on every byte but the last
+    private void putVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7fL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        } // end while
+        buffer[size++] = (byte) value;
+    } // end method putVarint
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    } // end method putInt
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    } // end method putLong
+
+    private void ensureCapacity(int bytes) {
+        if (size + bytes > buffer.length)
+            buffer = Arrays.copyOf(buffer,
+                    Math.max(2 * buffer.length, size + bytes));
+    } // end method ensureCapacity
+} // end class InputRecorder
@@ -0,0 +1,149 @@
+// InputReplay.java
+// Plays a recording made by InputRecorder again, as fast as possible
+package com.deitel.spoton.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// Replays every input at its recorded game time without waiting for it:
+// the game is advanced to each touch's time, the touch is resolved with
+// findSpot and applied, exactly as SpotOnView does. A touch that hits a
+// spot where the recording's missed one, or the reverse, or a final state
+// whose digest differs from the recorded one, counts as a divergence.
+public class InputReplay {
+    private final ByteBuffer recording;
+
+    // statistics of the last run
+    private int games; // games started or restored
+    private int gamesOver; // GAME_OVER entries checked
+    private int touches;
+    private int divergences;
+    private long endTime; // game time of the last entry
+
+    // constructs a replay of recording; throws IllegalArgumentException if
+    // it is not a recording of this version
+    public InputReplay(byte[] recording) {
+        this.recording = ByteBuffer.wrap(recording);
+        if (recording.length < 8 ||
+                this.recording.getInt(0) != InputRecorder.MAGIC ||
+                this.recording.getInt(4) != InputRecorder.VERSION)
+            throw new IllegalArgumentException("Not an input recording");
+    } // end InputReplay constructor
+
+    // plays the recording on game, whose listener receives its events;
+    // throws IllegalArgumentException if the recording is corrupt
+    public void run(SpotOnGame game) {
+        games = 0;
+        gamesOver = 0;
+        touches = 0;
+        divergences = 0;
+        long time = 0;
+        recording.position(8);
+
+        try {
+            while (recording.hasRemaining()) {
+                byte kind = recording.get();
+                long delta = getVarint();
+                time += (delta >>> 1) ^ -(delta & 1); // undo zigzag
+
+                switch (kind) {
+                    case InputRecorder.RESET:
+                        game.reset(time, recording.getLong());
+                        game.advanceTo(time);
+                        ++games;
+                        break;
+                    case InputRecorder.RESTORE:
+                        byte[] snapshot = new byte[(int) getVarint()];
+                        recording.get(snapshot);
+                        game.restoreState(snapshot, time);
+                        game.advanceTo(time);
+                        ++games;
+                        break;
+                    case InputRecorder.FIELD_SIZE:
+                        int width = (int) getVarint();
+                        game.setFieldSize(width, (int) getVarint());
+                        break;
+                    case InputRecorder.SPOT_TOUCH:
+                    case InputRecorder.BACKGROUND_TOUCH:
+                        float x = recording.getFloat();
+                        float y = recording.getFloat();
+                        touch(game, x, y, time,
+                                kind == InputRecorder.SPOT_TOUCH);
+                        break;
+                    case InputRecorder.PAUSE:
+                    case InputRecorder.RESUME:
+                        break; // game time does not pass while paused
+                    case InputRecorder.GAME_OVER:
+                        int digest = recording.getInt();
+                        game.advanceTo(time);
+                        ++gamesOver;
+                        if (!game.isGameOver() ||
+                                InputRecorder.digest(game) != digest)
+                            ++divergences;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                                "Unknown input kind " + kind);
+                } // end switch
+            } // end while
+        } // end try
+        catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated input recording");
+        } // end catch
+
+        endTime = time;
+    } // end method run
+
+    // applies a touch at (x, y) at time, as SpotOnView.onTouchEvent does
+    private void touch(SpotOnGame game, float x, float y, long time,
+            boolean hitSpot) {
+        ++touches;
+        game.advanceTo(time);
+        int spot = game.findSpot(x, y, time);
+        if ((spot != SpotStore.NONE) != hitSpot)
+            ++divergences;
+
+        if (spot != SpotStore.NONE)
+            game.touchSpot(spot, time);
+        else
+            game.touchBackground();
+    } // end method touch
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = recording.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+            if (shift > 56)
+                throw new IllegalArgumentException("Corrupt input recording");
+        } // end for
+    } // end method getVarint
+
+    // number of games the last run started or restored
+    public int getGameCount() {
+        return games;
+    } // end method getGameCount
+
+    // number of recorded game ends the last run checked
+    public int getGameOverCount() {
+        return gamesOver;
+    } // end method getGameOverCount
+
+    // number of touches the last run applied
+    public int getTouchCount() {
+        return touches;
+    } // end method getTouchCount
+
+    // number of touches and game ends in the last run that did not match
+    // the recording
+    public int getDivergenceCount() {
+        return divergences;
+    } // end method getDivergenceCount
+
+    // game time at which the last run ended
+    public long getEndTime() {
+        return endTime;
+    } // end method getEndTime
+} // end class InputReplay
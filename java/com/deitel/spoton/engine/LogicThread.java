@@ -0,0 +1,218 @@
+// LogicThread.java
+// Runs a game's frames and touches on a thread of its own
+package com.deitel.spoton.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// The UI thread sends each frame's game time and each touch over an
+// SpscRing; this thread hands them to the Target, whose game sends its
+// events back over another ring, and parks whenever its ring is empty.
+// Everything else done to the game (resets, restores, snapshots, reading
+// statistics) is done by the UI thread between awaitIdle and its next
+// frame or touch, while this thread is parked with nothing to do, so the
+// game is never touched by two threads at once.
+public class LogicThread {
+    // ints in an input record: a kind, a time's high and low halves, a
+    // touch's x and y as float bits and its System.nanoTime's high and low
+    // halves
+    private static final int INPUT_SIZE = 7;
+    private static final int INPUT_CAPACITY = 64;
+
+    // awaitIdle drains the commands at least this often while it waits,
+    // in case the thread is waiting for room in the command ring
+    private static final long DRAIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // input kinds
+    private static final int FRAME = 1;
+    private static final int TOUCH = 2;
+
+    // what runs the game; called only on this thread
+    public interface Target {
+        // advances the game to time
+        void advance(long time);
+
+        // applies a touch at (x, y) at time, which happened at nanos on
+        // the System.nanoTime clock
+        void touch(float x, float y, long time, long nanos);
+
+        // the inputs sent so far are done; called if they raised events
+        void onIdle();
+    } // end interface Target
+
+    // receives how long each input waited in the ring, in nanoseconds;
+    // called on this thread
+    public interface HandoffRecorder {
+        void record(long nanos);
+    } // end interface HandoffRecorder
+
+    private final SpscRing inputs = new SpscRing(INPUT_SIZE, INPUT_CAPACITY);
+    private final Target target;
+    private final HandoffRecorder recorder;
+    private final SpscRing commands; // checked for output after each input
+    private final Runnable drain; // empties commands on the UI thread
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long done; // inputs handled so far
+    private volatile Thread waiter; // unparked as inputs are handled
+
+    // UI thread's state
+    private long sent; // inputs published so far
+    private long inputStalls; // times the input ring was found full
+
+    // constructs a thread named name that runs target, which sends the
+    // game's events to commands; drain empties commands, and is run by the
+    // UI thread whenever it waits for this one, so that neither can wait
+    // on a full ring for the other. Call start to run the thread
+    public LogicThread(String name, Target target, SpscRing commands,
+            Runnable drain, HandoffRecorder recorder) {
+        this.target = target;
+        this.commands = commands;
+        this.drain = drain;
+        this.recorder = recorder;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            } // end method run
+        }, name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY); // urgent display on Android
+    } // end LogicThread constructor
+
+    public void start() {
+        thread.start();
+    } // end method start
+
+    // stops the thread once it has handled the inputs already sent, and
+    // waits at most timeout ms for it to end; returns whether it did. The
+    // thread is a daemon, so one still running cannot keep the process
+    // alive
+    public boolean quit(long timeout) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(timeout);
+        } // end try
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // leave it to the caller
+        } // end catch
+        return !thread.isAlive();
+    } // end method quit
+
+    // handles inputs until quit, parking while there are none
+    private void loop() {
+        int[] data = inputs.data();
+        long handled = 0;
+        long reported = 0; // commands published before the last onIdle
+        while (running || inputs.peek() >= 0) {
+            int offset = inputs.peek();
+            if (offset < 0) {
+                if (commands.getPublishedCount() != reported) {
+                    reported = commands.getPublishedCount();
+                    target.onIdle();
+                } // end if
+                LockSupport.park(this);
+                continue;
+            } // end if
+
+            recorder.record(System.nanoTime() - inputs.stamp());
+            long time = (long) data[offset + 1] << 32 |
+                    (data[offset + 2] & 0xffffffffL);
+            if (data[offset] == FRAME)
+                target.advance(time);
+            else
+                target.touch(Float.intBitsToFloat(data[offset + 3]),
+                        Float.intBitsToFloat(data[offset + 4]), time,
+                        (long) data[offset + 5] << 32 |
+                        (data[offset + 6] & 0xffffffffL));
+            inputs.release();
+            done = ++handled;
+            Thread waiting = waiter;
+            if (waiting != null)
+                LockSupport.unpark(waiting);
+        } // end while
+    } // end method loop
+
+    // sends the game time of a frame
+    public void frame(long time) {
+        send(FRAME, time, 0, 0, 0);
+    } // end method frame
+
+    // sends a touch at (x, y) at time, which happened at nanos on the
+    // System.nanoTime clock
+    public void touch(float x, float y, long time, long nanos) {
+        send(TOUCH, time, Float.floatToRawIntBits(x),
+                Float.floatToRawIntBits(y), nanos);
+    } // end method touch
+
+    // publishes an input and wakes the thread
+    private void send(int kind, long time, int x, int y, long nanos) {
+        int offset;
+        while ((offset = inputs.claim()) < 0) {
+            ++inputStalls; // the game is a whole ring behind; rare
+            LockSupport.unpark(thread);
+            drain.run();
+            Thread.yield();
+        } // end while
+
+        int[] data = inputs.data();
+        data[offset] = kind;
+        data[offset + 1] = (int) (time >>> 32);
+        data[offset + 2] = (int) time;
+        data[offset + 3] = x;
+        data[offset + 4] = y;
+        data[offset + 5] = (int) (nanos >>> 32);
+        data[offset + 6] = (int) nanos;
+        inputs.publish();
+        ++sent;
+        LockSupport.unpark(thread);
+    } // end method send
+
+    // waits at most timeout ns until every input sent has been handled,
+    // parked until the thread finishes an input or DRAIN_INTERVAL passes;
+    // returns whether it is idle. The caller may then use the game until
+    // its next frame or touch
+    public boolean awaitIdle(long timeout) {
+        if (done == sent)
+            return true;
+
+        long deadline = System.nanoTime() + timeout;
+        waiter = Thread.currentThread();
+        try {
+            while (done != sent) {
+                drain.run(); // the thread may be waiting for room
+                long left = deadline - System.nanoTime();
+                if (left <= 0)
+                    return false;
+                if (done != sent)
+                    LockSupport.parkNanos(this,
+                            Math.min(left, DRAIN_INTERVAL));
+            } // end while
+        } // end try
+        finally {
+            waiter = null;
+        } // end finally
+        return true;
+    } // end method awaitIdle
+
+    // inputs sent but not handled yet
+    public int getQueueDepth() {
+        return (int) (sent - done);
+    } // end method getQueueDepth
+
+    // most inputs that can wait at once
+    public int getQueueCapacity() {
+        return inputs.capacity();
+    } // end method getQueueCapacity
+
+    // most inputs that were waiting at once
+    public int getMaxQueueDepth() {
+        return inputs.getMaxDepth();
+    } // end method getMaxQueueDepth
+
+    // number of times an input waited for room in the ring
+    public long getInputStallCount() {
+        return inputStalls;
+    } // end method getInputStallCount
+} // end class LogicThread
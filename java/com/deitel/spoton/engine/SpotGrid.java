@@ -0,0 +1,149 @@
+// SpotGrid.java
+// Uniform grid over the spots' current bounds for constant-time hit tests
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+class SpotGrid {
+    private final float cellSize; // no smaller than the largest spot
+
+    // grid dimensions covering the playing field
+    private int columns;
+    private int rows;
+
+    // spots in each cell: the indices of cell c's spots are
+    // entries[cellStart[c]] to entries[cellStart[c + 1] - 1], in
+    // drawing order
+    private int[] cellStart = new int[1];
+    private int[] entries = new int[0];
+
+    // the bounds each spot sweeps over the span the grid was built for,
+    // indexed by slot
+    private float[] left = new float[0];
+    private float[] top = new float[0];
+    private float[] right = new float[0];
+    private float[] bottom = new float[0];
+
+    // constructs a grid whose cells are cellSize on each side
+    SpotGrid(float cellSize) {
+        this.cellSize = cellSize;
+    } // end SpotGrid constructor
+
+    // indexes spots at every position they take from time from to time
+    // until on a field of the given size; allocates only when the field or
+    // spot count grows
+    void build(SpotStore spots, long from, long until, int fieldWidth,
+            int fieldHeight) {
+        columns = Math.max(1, (int) Math.ceil(fieldWidth / cellSize));
+        rows = Math.max(1, (int) Math.ceil(fieldHeight / cellSize));
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1)
+            cellStart = new int[cells + 1];
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        int capacity = spots.capacity();
+        if (left.length < capacity) {
+            left = new float[capacity];
+            top = new float[capacity];
+            right = new float[capacity];
+            bottom = new float[capacity];
+        } // end if
+
+        // a spot's edges move linearly with its eased progress, so the
+        // bounds it sweeps are those at the span's ends; count the few
+        // cells they overlap first ...
+        float half = SpotOnGame.SPOT_DIAMETER / 2f;
+        int total = 0;
+        for (int i = spots.first(); i != SpotStore.NONE; i = spots.next(i)) {
+            float t = spots.progress(i, from);
+            float t2 = spots.progress(i, until);
+            float radius = half * spots.scale(t);
+            float radius2 = half * spots.scale(t2);
+            float centerX = spots.x(i, t) + half;
+            float centerY = spots.y(i, t) + half;
+            float centerX2 = spots.x(i, t2) + half;
+            float centerY2 = spots.y(i, t2) + half;
+            left[i] = Math.min(centerX - radius, centerX2 - radius2);
+            top[i] = Math.min(centerY - radius, centerY2 - radius2);
+            right[i] = Math.max(centerX + radius, centerX2 + radius2);
+            bottom[i] = Math.max(centerY + radius, centerY2 + radius2);
+
+            for (int row = row(top[i]); row <= row(bottom[i]); ++row)
+                for (int col = column(left[i]); col <= column(right[i]);
+                        ++col) {
+                    ++cellStart[row * columns + col + 1];
+                    ++total;
+                } // end for
+        } // end for
+
+        // ... turn the counts into start offsets ...
+        for (int c = 1; c <= cells; ++c)
+            cellStart[c] += cellStart[c - 1];
+
+        if (entries.length < total)
+            entries = new int[Math.max(total, 2 * entries.length)];
+
+        // ... then place each spot in its cells, using cellStart[c] as the
+        // fill position of cell c; that leaves it at the start of cell
+        // c + 1, so the last pass shifts the offsets back
+        for (int i = spots.first(); i != SpotStore.NONE; i = spots.next(i))
+            for (int row = row(top[i]); row <= row(bottom[i]); ++row)
+                for (int col = column(left[i]); col <= column(right[i]); ++col)
+                    entries[cellStart[row * columns + col]++] = i;
+
+        for (int c = cells; c > 0; --c)
+            cellStart[c] = cellStart[c - 1];
+        cellStart[0] = 0;
+    } // end method build
+
+    // returns the slot of the spot containing (x, y) at time now, within
+    // the span the grid was built for: the one whose number is expected if
+    // several overlap there, otherwise the topmost; returns SpotStore.NONE
+    // if no spot contains the point. Spots removed since the build are
+    // skipped
+    int find(SpotStore spots, float x, float y, int expected, long now) {
+        if (x < 0 || y < 0)
+            return SpotStore.NONE;
+
+        int col = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        if (col >= columns || row >= rows)
+            return SpotStore.NONE;
+
+        int cell = row * columns + col;
+        int found = SpotStore.NONE;
+        float half = SpotOnGame.SPOT_DIAMETER / 2f;
+
+        for (int e = cellStart[cell]; e < cellStart[cell + 1]; ++e) {
+            int i = entries[e];
+            if (spots.state[i] == SpotStore.FREE ||
+                    x < left[i] || x > right[i] || y < top[i] ||
+                    y > bottom[i])
+                continue; // removed, or nowhere near (x, y) in the span
+
+            // the spot's bounds at time now
+            float t = spots.progress(i, now);
+            float radius = half * spots.scale(t);
+            float centerX = spots.x(i, t) + half;
+            float centerY = spots.y(i, t) + half;
+            if (Math.abs(x - centerX) <= radius &&
+                    Math.abs(y - centerY) <= radius) {
+                if (spots.number[i] == expected)
+                    return i; // the player is most likely aiming for it
+                found = i; // later entries are drawn on top
+            } // end if
+        } // end for
+
+        return found;
+    } // end method find
+
+    // grid column containing x, clamped to the grid
+    private int column(float x) {
+        return Math.min(columns - 1, Math.max(0, (int) (x / cellSize)));
+    } // end method column
+
+    // grid row containing y, clamped to the grid
+    private int row(float y) {
+        return Math.min(rows - 1, Math.max(0, (int) (y / cellSize)));
+    } // end method row
+} // end class SpotGrid
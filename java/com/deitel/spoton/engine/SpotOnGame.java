@@ -0,0 +1,677 @@
+// SpotOnGame.java
+// Rules of the SpotOn counting game, independent of Android
+package com.deitel.spoton.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+public class SpotOnGame implements GameState {
+    // constants that define the game
+    public static final int SPOT_DIAMETER = 100; // initial spot size
+    public static final float END_SCALE = 0.5f; // end animation scale
+    public static final int INITIAL_ANIMATION_DURATION = 15000; // in ms
+    public static final int INITIAL_SPOTS = 10; // spots added per level
+    public static final int SPOT_DELAY = 1000; // ms between added spots
+    public static final int TICK_INTERVAL = 1000; // ms per countdown second
+    public static final int MAX_NUMBER = 30; // numbers wrap after this one
+    public static final int FINAL_LEVEL = 4; // winning this level wins
+
+    // kinds of scheduled event; events due at the same time run in this
+    // order
+    private static final int SPAWN = 0; // add a spot; data: spots left
+    private static final int TICK = 1; // count down one second
+    private static final int EXPIRE = 2; // a spot stops; data: its handle
+
+    // one turn of the event wheel covers the default animation; events
+    // further ahead, as with longer GameSettings animations, wrap around
+    // and are skipped until the turn that reaches their tick
+    private static final int WHEEL_RESOLUTION = 16; // ms, about a frame
+    private static final int WHEEL_BUCKETS = 1024;
+
+    // receives the game's events; called from whichever method caused them.
+    // Spots are identified by their SpotStore handles
+    public interface Listener {
+        // a level started; its spots will show numOn through numGoal
+        void onLevelStarted(int level);
+
+        // the level's last number was touched; called before the next
+        // level starts or the game is won, while the getters still
+        // describe the completed level
+        void onLevelCompleted(int level);
+
+        // a new spot entered play
+        void onSpotAdded(int spot);
+
+        // a spot finished moving without being touched; it stays in play
+        void onSpotMissed(int spot);
+
+        // the expected spot was touched and leaves play once this method
+        // returns; its handle then becomes stale
+        void onSpotTouched(int spot);
+
+        // a spot other than the expected one was touched
+        void onWrongSpot(int spot);
+
+        // the field was touched but not a spot
+        void onBackgroundTouched();
+
+        // the time, total time or level changed
+        void onScoresChanged();
+
+        // the final level was completed
+        void onGameWon();
+
+        // the time limit ran out
+        void onGameLost();
+    } // end interface Listener
+
+    private final GameRandom random; // for coordinates and level 4's goal
+    private final Listener listener; // receives the game's events
+    private final GameSettings settings; // timing and length of levels
+
+    // spots in play, in the order they were added (the last is on top)
+    private final SpotStore spots =
+            new SpotStore(2 * INITIAL_SPOTS, END_SCALE);
+
+    // spatial index for hit tests, covering where the spots are from
+    // gridFrom to gridFrom + GRID_SPAN; rebuilt once that has passed or
+    // spots were added or moved. Removed spots are skipped by the grid
+    private static final int GRID_SPAN = 250; // ms, several frames
+    private final SpotGrid grid = new SpotGrid(SPOT_DIAMETER);
+    private long gridFrom = Long.MAX_VALUE; // start of the span covered
+    private boolean gridStale = true; // spots added or moved since
+
+    private int fieldWidth; // width of the playing field
+    private int fieldHeight; // height of the playing field
+
+    // trajectories of the level's spots, planned when it starts so that
+    // they keep clear of each other; the (i + 1)th spot added follows the
+    // ith, and a level that starts before the field's size is known is
+    // planned once it is
+    private final TrajectoryPlanner planner =
+            new TrajectoryPlanner(SPOT_DIAMETER, END_SCALE);
+    private boolean planPending; // spawns wait for a field to plan them in
+
+    // variables for managing the game
+    private int level; // current level
+    private int numOn; // number the player must touch next
+    private int numGoal; // last number of the current level
+    private int numSpotsMade; // number shown on the next spot added
+    private int timeLimit; // seconds left in the current level
+    private int totalTime; // seconds played in the whole game
+    private int animationTime; // how long each spot moves, in ms
+    private boolean gameOver; // whether the game has ended
+    private boolean gameWon; // whether the ended game was won
+
+    // spawns, countdown ticks and spot expiries, in game-clock
+    // milliseconds; each spawn or tick schedules the next one from its own
+    // deadline, so the schedule does not drift however late it runs
+    private final TimerWheel events = new TimerWheel(WHEEL_RESOLUTION,
+            WHEEL_BUCKETS, 4 * INITIAL_SPOTS);
+    private long nextTickTime; // when the countdown next decreases
+    private int spawnsLeft; // spots still to be added this level
+    private long nextSpawnTime; // when the next of them is added
+
+    // snapshot format: SNAPSHOT_MAGIC and SNAPSHOT_VERSION, the counters,
+    // the random number generator's state and the schedule, then each spot
+    // in drawing order, then the planned trajectories; times are stored
+    // relative to the snapshot's time
+    private static final int SNAPSHOT_MAGIC = 0x53504f54; // "SPOT"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_LEVEL_OFFSET = 16; // level
+    private static final int SNAPSHOT_MADE_OFFSET = 28; // numSpotsMade
+    private static final int SNAPSHOT_TIME_OFFSET = 32; // timeLimit
+    private static final int SNAPSHOT_ANIMATION_OFFSET = 40; // animationTime
+    private static final int SNAPSHOT_SPAWNS_OFFSET = 73; // spawnsLeft
+    private static final int SNAPSHOT_PENDING_OFFSET = 87; // planPending
+    private static final int SNAPSHOT_COUNT_OFFSET = 88; // spot count
+    private static final int SNAPSHOT_HEADER_SIZE = 92;
+    private static final int SNAPSHOT_SPOT_SIZE = 29;
+    private static final int SNAPSHOT_TRAJECTORY_SIZE = 16;
+
+    // statistics for the current game
+    private int wrongTouches; // touches on spots other than numOn
+    private int backgroundTouches; // touches that missed every spot
+    private int missedSpots; // spots that stopped without being touched
+
+    // constructs a game that draws its random numbers from random
+    public SpotOnGame(GameRandom random, Listener listener) {
+        this(random, listener, GameSettings.DEFAULT);
+    } // end SpotOnGame constructor
+
+    // constructs a game played with settings instead of the default ones
+    public SpotOnGame(GameRandom random, Listener listener,
+            GameSettings settings) {
+        this.random = random;
+        this.listener = listener;
+        this.settings = settings;
+    } // end SpotOnGame constructor
+
+    // sets the size of the area spots move in; spots already in play and
+    // planned keep their positions relative to the field. A size of 0,
+    // as a View has before its layout, is not known yet
+    public void setFieldSize(int width, int height) {
+        if (fieldWidth > 0 && fieldHeight > 0 && width > 0 && height > 0 &&
+                (width != fieldWidth || height != fieldHeight)) {
+            float scaleX = (float) range(width) / range(fieldWidth);
+            float scaleY = (float) range(height) / range(fieldHeight);
+            for (int slot = spots.first(); slot != SpotStore.NONE;
+                    slot = spots.next(slot)) {
+                spots.startX[slot] *= scaleX;
+                spots.startY[slot] *= scaleY;
+                spots.endX[slot] *= scaleX;
+                spots.endY[slot] *= scaleY;
+            } // end for
+            planner.scale(scaleX, scaleY);
+            gridStale = true;
+        } // end if
+
+        fieldWidth = width;
+        fieldHeight = height;
+        if (planPending && width > 0 && height > 0 && !gameOver)
+            planSpawns(nextSpawnTime);
+    } // end method setFieldSize
+
+    // span of a spot's left or top edge across a field size long, at
+    // least 1 however small the field
+    private static int range(int size) {
+        return Math.max(1, size - SPOT_DIAMETER);
+    } // end method range
+
+    // starts a new game at time now whose spots are drawn from seed, so
+    // that it can be played again
+    public void reset(long now, long seed) {
+        random.setSeed(seed);
+        reset(now);
+    } // end method reset
+
+    // starts a new game at time now
+    public void reset(long now) {
+        spots.clear(); // free the last game's spots
+        events.clear(now); // and cancel its events
+        gridStale = true;
+
+        level = 1;
+        numOn = 1;
+        numGoal = settings.getSpotsPerLevel();
+        numSpotsMade = 1;
+        timeLimit = settings.getTimeLimit(level);
+        totalTime = 0;
+        animationTime = settings.getAnimationDuration();
+        gameOver = false;
+        gameWon = false;
+        wrongTouches = 0;
+        backgroundTouches = 0;
+        missedSpots = 0;
+
+        listener.onLevelStarted(level);
+        scheduleSpawns(now);
+        nextTickTime = now; // the countdown starts immediately
+        events.schedule(nextTickTime, TICK, 0);
+        listener.onScoresChanged();
+    } // end method reset
+
+    // adds a level's spots at the settings' intervals after now; only the
+    // first is scheduled, and each spawn schedules the one after it
+    private void scheduleSpawns(long now) {
+        spawnsLeft = settings.getSpotsPerLevel();
+        nextSpawnTime = now + settings.getSpotDelay();
+        events.schedule(nextSpawnTime, SPAWN, spawnsLeft);
+        planPending = true;
+        if (fieldWidth > 0 && fieldHeight > 0)
+            planSpawns(nextSpawnTime);
+    } // end method scheduleSpawns
+
+    // plans the trajectories of the spawnsLeft spots still to be added,
+    // the first at time first, around the spots in play
+    private void planSpawns(long first) {
+        planner.plan(random, spots, first, spawnsLeft,
+                settings.getSpotDelay(), animationTime, fieldWidth,
+                fieldHeight);
+        planPending = false;
+    } // end method planSpawns
+
+    // runs every spawn, countdown tick and spot expiry due by time now,
+    // in the order they were scheduled; meant to be called once a frame
+    public void advanceTo(long now) {
+        while (!gameOver && events.poll(now)) {
+            long time = events.getFiredDeadline();
+            int data = events.getFiredData();
+
+            switch (events.getFiredKind()) {
+                case SPAWN:
+                    addSpot(time);
+                    spawnsLeft = data - 1;
+                    nextSpawnTime = time + settings.getSpotDelay();
+                    if (spawnsLeft > 0)
+                        events.schedule(nextSpawnTime, SPAWN, spawnsLeft);
+                    break;
+                case TICK:
+                    nextTickTime = time + TICK_INTERVAL;
+                    events.schedule(nextTickTime, TICK, 0);
+                    tick();
+                    break;
+                case EXPIRE:
+                    expireSpot(data);
+                    break;
+            } // end switch
+        } // end while
+    } // end method advanceTo
+
+    // time of the next spawn, tick or spot expiry, or Long.MAX_VALUE if
+    // nothing is scheduled
+    public long getNextEventTime() {
+        return gameOver ? Long.MAX_VALUE : events.nextDeadline();
+    } // end method getNextEventTime
+
+    // marks the spot with handle as stopped if it is still in play; its
+    // expiry is not cancelled when it is touched, so it may be stale
+    private void expireSpot(int spot) {
+        int slot = spots.slot(spot);
+        if (slot == SpotStore.NONE)
+            return; // touched before it stopped
+
+        spots.state[slot] = SpotStore.STOPPED;
+        ++missedSpots;
+        listener.onSpotMissed(spot);
+    } // end method expireSpot
+
+    // counts down one second of the time limit
+    private void tick() {
+        timeLimit -= 1;
+        totalTime += 1;
+
+        if (timeLimit < 0) {
+            gameOver = true;
+            listener.onGameLost();
+        }
+        else
+            listener.onScoresChanged();
+    } // end method tick
+
+    // adds the next planned spot, which starts moving at time now; the
+    // level's spots are planned now if the field's size was not known
+    // before
+    private void addSpot(long now) {
+        if (planPending)
+            planSpawns(now);
+
+        int plan = planner.size() - spawnsLeft; // spawnsLeft counts this one
+        float x = planner.getStartX(plan);
+        float y = planner.getStartY(plan);
+        float x2 = planner.getEndX(plan);
+        float y2 = planner.getEndY(plan);
+
+        int spot = spots.add(numSpotsMade, x, y, x2, y2, now, animationTime);
+        events.schedule(now + animationTime, EXPIRE, spot);
+        gridStale = true;
+
+        if (numSpotsMade == MAX_NUMBER)
+            numSpotsMade = 1;
+        else
+            numSpotsMade += 1;
+
+        listener.onSpotAdded(spot);
+    } // end method addSpot
+
+    // called when the player touches the spot with handle spot; returns
+    // true if it was the expected number
+    public boolean touchSpot(int spot, long now) {
+        int slot = spots.slot(spot);
+        if (gameOver || slot == SpotStore.NONE)
+            return false; // spot is no longer in play
+
+        if (spots.number[slot] != numOn) {
+            ++wrongTouches;
+            listener.onWrongSpot(spot);
+            return false;
+        } // end if
+
+        listener.onSpotTouched(spot);
+        spots.remove(slot); // the grid skips it from now on
+
+        numOn += 1;
+        if (numOn > numGoal)
+            completeLevel(now);
+
+        return true;
+    } // end method touchSpot
+
+    // called when the player touches the field but not a spot
+    public void touchBackground() {
+        ++backgroundTouches;
+        listener.onBackgroundTouched();
+    } // end method touchBackground
+
+    // moves on to the next level, or ends the game after the final level
+    private void completeLevel(long now) {
+        listener.onLevelCompleted(level);
+
+        if (level == FINAL_LEVEL) {
+            gameOver = true;
+            gameWon = true;
+            listener.onGameWon();
+            return;
+        } // end if
+
+        ++level;
+        timeLimit = settings.getTimeLimit(level);
+
+        if (level == FINAL_LEVEL) {
+            // count a level of numbers up to a random goal of at most 30
+            int count = settings.getSpotsPerLevel();
+            numGoal = random.nextInt(MAX_NUMBER - count + 1) + count;
+            numSpotsMade = numGoal - count + 1;
+            numOn = numSpotsMade;
+        }
+        else
+            numGoal += settings.getSpotsPerLevel();
+
+        listener.onLevelStarted(level);
+        scheduleSpawns(now);
+        listener.onScoresChanged();
+    } // end method completeLevel
+
+    // returns a snapshot of the game at time now, from which restoreState
+    // continues it: the counters, the schedule, the random number
+    // generator and every spot with its trajectory and elapsed time
+    public byte[] saveState(long now) {
+        ByteBuffer out = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE +
+                spots.size() * SNAPSHOT_SPOT_SIZE + 4 +
+                planner.size() * SNAPSHOT_TRAJECTORY_SIZE);
+        out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+        out.putInt(fieldWidth).putInt(fieldHeight);
+        out.putInt(level).putInt(numOn).putInt(numGoal).putInt(numSpotsMade);
+        out.putInt(timeLimit).putInt(totalTime).putInt(animationTime);
+        out.put((byte) ((gameOver ? 1 : 0) | (gameWon ? 2 : 0)));
+        out.putInt(wrongTouches).putInt(backgroundTouches);
+        out.putInt(missedSpots);
+        out.putLong(random.getState());
+        out.putLong(nextTickTime - now);
+        out.putInt(spawnsLeft).putLong(nextSpawnTime - now);
+        out.putShort((short) 0); // reserved
+        out.put((byte) (planPending ? 1 : 0)); // at SNAPSHOT_PENDING_OFFSET
+
+        out.putInt(spots.size());
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot)) {
+            out.putInt(spots.number[slot]);
+            out.putFloat(spots.startX[slot]).putFloat(spots.startY[slot]);
+            out.putFloat(spots.endX[slot]).putFloat(spots.endY[slot]);
+            out.putInt((int) Math.min(Integer.MAX_VALUE,
+                    now - spots.startTime[slot])); // elapsed
+            out.putInt(spots.duration[slot]);
+            out.put(spots.state[slot]);
+        } // end for
+
+        out.putInt(planner.size());
+        for (int i = 0; i < planner.size(); ++i) {
+            out.putFloat(planner.getStartX(i)).putFloat(planner.getStartY(i));
+            out.putFloat(planner.getEndX(i)).putFloat(planner.getEndY(i));
+        } // end for
+
+        return out.array();
+    } // end method saveState
+
+    // replaces this game with the snapshot state, saved by saveState, as
+    // of time now; calls onLevelStarted and onScoresChanged but not
+    // onSpotAdded. Throws IllegalArgumentException, leaving the game
+    // unchanged, if state is not a valid snapshot of a game with these
+    // settings
+    public void restoreState(byte[] state, long now) {
+        ByteBuffer in = ByteBuffer.wrap(state);
+        try {
+            if (in.getInt() != SNAPSHOT_MAGIC ||
+                    in.getInt() != SNAPSHOT_VERSION)
+                throw new IllegalArgumentException("Not a game snapshot");
+
+            // counters that index the settings, name numbers or bound the
+            // work advanceTo and the planner do; numOn is past numGoal
+            // once the game is won, and timeLimit below 0 once it is lost
+            int savedLevel = in.getInt(SNAPSHOT_LEVEL_OFFSET);
+            int savedNumOn = in.getInt(SNAPSHOT_LEVEL_OFFSET + 4);
+            int savedNumGoal = in.getInt(SNAPSHOT_LEVEL_OFFSET + 8);
+            int savedNumMade = in.getInt(SNAPSHOT_MADE_OFFSET);
+            int savedTime = in.getInt(SNAPSHOT_TIME_OFFSET);
+            int savedSpawns = in.getInt(SNAPSHOT_SPAWNS_OFFSET);
+            if (savedLevel < 1 || savedLevel > FINAL_LEVEL ||
+                    savedNumOn < 1 || savedNumOn > MAX_NUMBER + 1 ||
+                    savedNumGoal < 1 || savedNumGoal > MAX_NUMBER ||
+                    savedNumMade < 1 || savedNumMade > MAX_NUMBER ||
+                    savedTime < -1 ||
+                    savedTime > settings.getTimeLimit(savedLevel) ||
+                    in.getInt(SNAPSHOT_ANIMATION_OFFSET) <= 0 ||
+                    in.getInt(SNAPSHOT_ANIMATION_OFFSET) >
+                    settings.getAnimationDuration() ||
+                    savedSpawns < 0 ||
+                    savedSpawns > settings.getSpotsPerLevel())
+                throw new IllegalArgumentException("Corrupt game snapshot");
+
+            // sizes in long arithmetic, so a corrupt count cannot wrap
+            in.position(SNAPSHOT_COUNT_OFFSET);
+            int count = in.getInt();
+            long spotBytes = (long) count * SNAPSHOT_SPOT_SIZE;
+            if (count < 0 || in.remaining() < spotBytes + 4)
+                throw new IllegalArgumentException("Truncated game snapshot");
+
+            int plans = in.getInt(in.position() + (int) spotBytes);
+            if (plans < 0 || in.remaining() != spotBytes + 4 +
+                    (long) plans * SNAPSHOT_TRAJECTORY_SIZE)
+                throw new IllegalArgumentException("Truncated game snapshot");
+            if (plans > settings.getSpotsPerLevel() || (savedSpawns > plans &&
+                    in.get(SNAPSHOT_PENDING_OFFSET) == 0))
+                throw new IllegalArgumentException("Corrupt game snapshot");
+
+            for (int i = 0; i < count; ++i) {
+                int spot = in.position() + i * SNAPSHOT_SPOT_SIZE;
+                int number = in.getInt(spot);
+                int duration = in.getInt(spot + 24);
+                byte spotState = in.get(spot + 28);
+                if (number < 1 || number > MAX_NUMBER || duration <= 0 ||
+                        duration > settings.getAnimationDuration() ||
+                        (spotState != SpotStore.MOVING &&
+                        spotState != SpotStore.STOPPED) ||
+                        !finite(in, spot + 4, 4))
+                    throw new IllegalArgumentException("Corrupt game snapshot");
+            } // end for
+
+            int trajectories = in.position() + (int) spotBytes + 4;
+            if (!finite(in, trajectories, 4 * plans))
+                throw new IllegalArgumentException("Corrupt game snapshot");
+
+            in.position(8);
+        } // end try
+        catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated game snapshot");
+        } // end catch
+
+        int savedWidth = in.getInt();
+        int savedHeight = in.getInt();
+        level = in.getInt();
+        numOn = in.getInt();
+        numGoal = in.getInt();
+        numSpotsMade = in.getInt();
+        timeLimit = in.getInt();
+        totalTime = in.getInt();
+        animationTime = in.getInt();
+        byte flags = in.get();
+        gameOver = (flags & 1) != 0;
+        gameWon = (flags & 2) != 0;
+        wrongTouches = in.getInt();
+        backgroundTouches = in.getInt();
+        missedSpots = in.getInt();
+        random.setState(in.getLong());
+
+        // rebuild the schedule at the same distances from now
+        spots.clear();
+        events.clear(now);
+        gridStale = true;
+        nextTickTime = now + in.getLong();
+        spawnsLeft = in.getInt();
+        nextSpawnTime = now + in.getLong();
+        if (!gameOver) {
+            events.schedule(nextTickTime, TICK, 0);
+            if (spawnsLeft > 0)
+                events.schedule(nextSpawnTime, SPAWN, spawnsLeft);
+        } // end if
+
+        in.position(SNAPSHOT_COUNT_OFFSET);
+        for (int count = in.getInt(); count > 0; --count) {
+            int number = in.getInt();
+            float x = in.getFloat();
+            float y = in.getFloat();
+            float x2 = in.getFloat();
+            float y2 = in.getFloat();
+            long start = now - in.getInt();
+            int duration = in.getInt();
+            byte spotState = in.get();
+
+            int spot = spots.add(number, x, y, x2, y2, start, duration);
+            if (spotState == SpotStore.STOPPED)
+                spots.state[spots.slot(spot)] = SpotStore.STOPPED;
+            else if (!gameOver)
+                events.schedule(start + duration, EXPIRE, spot);
+        } // end for
+
+        planner.restore(in.getInt());
+        for (int i = 0; i < planner.size(); ++i)
+            planner.set(i, in.getFloat(), in.getFloat(), in.getFloat(),
+                    in.getFloat());
+        planPending = in.get(SNAPSHOT_PENDING_OFFSET) != 0;
+
+        // positions are relative to the saved field; adopt its size until
+        // the real one is known, or scale them to the current one
+        int width = fieldWidth;
+        int height = fieldHeight;
+        fieldWidth = savedWidth;
+        fieldHeight = savedHeight;
+        if (width > 0 && height > 0)
+            setFieldSize(width, height);
+
+        listener.onLevelStarted(level);
+        listener.onScoresChanged();
+    } // end method restoreState
+
+    // whether the count floats from offset in in are all finite, so that
+    // no position of a corrupt snapshot reaches the store or the grid
+    private static boolean finite(ByteBuffer in, int offset, int count) {
+        for (int i = 0; i < count; ++i)
+            if (Float.isNaN(in.getFloat(offset + 4 * i)) ||
+                    Float.isInfinite(in.getFloat(offset + 4 * i)))
+                return false;
+        return true;
+    } // end method finite
+
+    // indexes the spots for findSpot at time now unless the index
+    // already covers the next half GRID_SPAN; called each frame after
+    // advanceTo, so touches only look spots up and the index is rebuilt
+    // a few times a second, or in the frame after spots were added
+    public void prepareHitTests(long now) {
+        if (gridStale || now < gridFrom || now - gridFrom > GRID_SPAN / 2)
+            buildGrid(now);
+    } // end method prepareHitTests
+
+    // indexes the spots where they are from time now to now + GRID_SPAN
+    private void buildGrid(long now) {
+        grid.build(spots, now, now + GRID_SPAN, fieldWidth, fieldHeight);
+        gridFrom = now;
+        gridStale = false;
+    } // end method buildGrid
+
+    // returns the handle of the spot containing (x, y) at time now, or
+    // SpotStore.NONE; where spots overlap, the one showing numOn wins,
+    // then the topmost. Lookups test only the spots near (x, y); the
+    // index is built here only if prepareHitTests has not covered now
+    public int findSpot(float x, float y, long now) {
+        if (gridStale || now < gridFrom || now - gridFrom > GRID_SPAN)
+            buildGrid(now);
+
+        int slot = grid.find(spots, x, y, numOn, now);
+        return (slot == SpotStore.NONE) ? SpotStore.NONE : spots.handle(slot);
+    } // end method findSpot
+
+    // the spots in play; read-only for callers outside the engine
+    @Override
+    public SpotStore getSpots() {
+        return spots;
+    } // end method getSpots
+
+    @Override
+    public int getLevel() {
+        return level;
+    } // end method getLevel
+
+    @Override
+    public int getNumOn() {
+        return numOn;
+    } // end method getNumOn
+
+    @Override
+    public int getNumGoal() {
+        return numGoal;
+    } // end method getNumGoal
+
+    @Override
+    public int getTimeLimit() {
+        return timeLimit;
+    } // end method getTimeLimit
+
+    @Override
+    public int getTotalTime() {
+        return totalTime;
+    } // end method getTotalTime
+
+    // seconds the current level's time limit started from
+    @Override
+    public int getLevelTimeLimit() {
+        return settings.getTimeLimit(level);
+    } // end method getLevelTimeLimit
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    } // end method isGameOver
+
+    @Override
+    public boolean isGameWon() {
+        return gameWon;
+    } // end method isGameWon
+
+    @Override
+    public int getWrongTouches() {
+        return wrongTouches;
+    } // end method getWrongTouches
+
+    @Override
+    public int getBackgroundTouches() {
+        return backgroundTouches;
+    } // end method getBackgroundTouches
+
+    @Override
+    public int getMissedSpots() {
+        return missedSpots;
+    } // end method getMissedSpots
+
+    // number of scheduled events run since the game started
+    public int getEventCount() {
+        return events.getFiredCount();
+    } // end method getEventCount
+
+    // number of spawns, ticks and spot expiries scheduled but not yet run,
+    // including the expiries of spots touched before they stopped
+    public int getPendingEventCount() {
+        return events.size();
+    } // end method getPendingEventCount
+
+    // mean ms by which advanceTo ran events after they were due; with a
+    // clock that follows wall time, this is the scheduling jitter
+    public double getMeanEventLateness() {
+        int count = events.getFiredCount();
+        return (count == 0) ? 0 : (double) events.getTotalLateness() / count;
+    } // end method getMeanEventLateness
+
+    // largest ms by which advanceTo ran an event after it was due
+    public long getMaxEventLateness() {
+        return events.getMaxLateness();
+    } // end method getMaxEventLateness
+} // end class SpotOnGame
@@ -0,0 +1,314 @@
+// SpotStore.java
+// Spots in play, stored as parallel primitive arrays
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+// Each spot occupies a slot, an index into the arrays below. Callers refer
+// to a spot by its handle, which combines the slot with the slot's
+// generation; the generation changes whenever the slot is freed, so a
+// handle kept after its spot left play is recognized as stale in O(1).
+// Live slots are linked in the order their spots were added, which is
+// also the drawing order (the last slot is on top).
+public class SpotStore {
+    public static final int NONE = -1; // no slot or handle
+
+    // slot states
+    static final byte FREE = 0; // slot holds no spot
+    static final byte MOVING = 1; // spot is moving along its trajectory
+    static final byte STOPPED = 2; // spot reached its end without a touch
+
+    private static final int SLOT_BITS = 16; // low bits of a handle
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int MAX_CAPACITY = 1 << SLOT_BITS;
+    private static final int GENERATION_MASK = 0x7fff; // keeps handles >= 0
+
+    // per-slot spot data
+    int[] number; // numeral displayed on the spot
+    float[] startX; // left edge when the animation starts
+    float[] startY; // top edge when the animation starts
+    float[] endX; // left edge when the animation ends
+    float[] endY; // top edge when the animation ends
+    long[] startTime; // animation start in game-clock milliseconds
+    int[] duration; // animation length in milliseconds
+    byte[] state; // FREE, MOVING or STOPPED
+    private int[] generation; // changes each time the slot is freed
+
+    // links between live slots in drawing order, and unused slots
+    private int[] previous;
+    private int[] next;
+    private int first = NONE; // bottom spot
+    private int last = NONE; // top spot
+    private int[] freeSlots;
+    private int freeCount;
+    private int size; // number of live spots
+
+    private final float endScale; // every spot's scale at the end
+
+    // constructs a store with room for capacity spots before it grows
+    public SpotStore(int capacity, float endScale) {
+        this.endScale = endScale;
+        allocate(0, Math.max(1, capacity));
+    } // end SpotStore constructor
+
+    // grows the arrays from oldCapacity to capacity slots
+    private void allocate(int oldCapacity, int capacity) {
+        number = grow(number, capacity);
+        startX = grow(startX, capacity);
+        startY = grow(startY, capacity);
+        endX = grow(endX, capacity);
+        endY = grow(endY, capacity);
+        startTime = grow(startTime, capacity);
+        duration = grow(duration, capacity);
+        state = grow(state, capacity);
+        generation = grow(generation, capacity);
+        previous = grow(previous, capacity);
+        next = grow(next, capacity);
+        freeSlots = grow(freeSlots, capacity);
+
+        // new slots are handed out lowest first
+        for (int slot = capacity - 1; slot >= oldCapacity; --slot)
+            freeSlots[freeCount++] = slot;
+    } // end method allocate
+
+    private static int[] grow(int[] array, int capacity) {
+        return (array == null) ? new int[capacity] :
+                Arrays.copyOf(array, capacity);
+    } // end method grow
+
+    private static float[] grow(float[] array, int capacity) {
+        return (array == null) ? new float[capacity] :
+                Arrays.copyOf(array, capacity);
+    } // end method grow
+
+    private static long[] grow(long[] array, int capacity) {
+        return (array == null) ? new long[capacity] :
+                Arrays.copyOf(array, capacity);
+    } // end method grow
+
+    private static byte[] grow(byte[] array, int capacity) {
+        return (array == null) ? new byte[capacity] :
+                Arrays.copyOf(array, capacity);
+    } // end method grow
+
+    // adds a spot on top of the others and returns its handle
+    int add(int spotNumber, float x, float y, float x2, float y2,
+            long start, int length) {
+        if (freeCount == 0) {
+            int capacity = number.length;
+            if (capacity == MAX_CAPACITY)
+                throw new IllegalStateException("Too many spots");
+            allocate(capacity, Math.min(MAX_CAPACITY, 2 * capacity));
+        } // end if
+
+        int slot = freeSlots[--freeCount];
+        number[slot] = spotNumber;
+        startX[slot] = x;
+        startY[slot] = y;
+        endX[slot] = x2;
+        endY[slot] = y2;
+        startTime[slot] = start;
+        duration[slot] = length;
+        state[slot] = MOVING;
+
+        // link the slot after the current top spot
+        previous[slot] = last;
+        next[slot] = NONE;
+        if (last == NONE)
+            first = slot;
+        else
+            next[last] = slot;
+        last = slot;
+
+        ++size;
+        return handle(slot);
+    } // end method add
+
+    // removes the spot in slot from play and frees the slot
+    void remove(int slot) {
+        if (previous[slot] == NONE)
+            first = next[slot];
+        else
+            next[previous[slot]] = next[slot];
+
+        if (next[slot] == NONE)
+            last = previous[slot];
+        else
+            previous[next[slot]] = previous[slot];
+
+        state[slot] = FREE;
+        ++generation[slot]; // outstanding handles become stale
+        freeSlots[freeCount++] = slot;
+        --size;
+    } // end method remove
+
+    // removes every spot
+    void clear() {
+        while (first != NONE)
+            remove(first);
+    } // end method clear
+
+    // makes this store an exact copy of other, including its free slots
+    // and generations, so each of other's handles means the same spot here
+    // and both stores hand out the same handles for the same operations
+    void copyFrom(SpotStore other) {
+        int capacity = other.number.length;
+        if (number.length != capacity) {
+            number = new int[capacity];
+            startX = new float[capacity];
+            startY = new float[capacity];
+            endX = new float[capacity];
+            endY = new float[capacity];
+            startTime = new long[capacity];
+            duration = new int[capacity];
+            state = new byte[capacity];
+            generation = new int[capacity];
+            previous = new int[capacity];
+            next = new int[capacity];
+            freeSlots = new int[capacity];
+        } // end if
+
+        System.arraycopy(other.number, 0, number, 0, capacity);
+        System.arraycopy(other.startX, 0, startX, 0, capacity);
+        System.arraycopy(other.startY, 0, startY, 0, capacity);
+        System.arraycopy(other.endX, 0, endX, 0, capacity);
+        System.arraycopy(other.endY, 0, endY, 0, capacity);
+        System.arraycopy(other.startTime, 0, startTime, 0, capacity);
+        System.arraycopy(other.duration, 0, duration, 0, capacity);
+        System.arraycopy(other.state, 0, state, 0, capacity);
+        System.arraycopy(other.generation, 0, generation, 0, capacity);
+        System.arraycopy(other.previous, 0, previous, 0, capacity);
+        System.arraycopy(other.next, 0, next, 0, capacity);
+        System.arraycopy(other.freeSlots, 0, freeSlots, 0, capacity);
+        first = other.first;
+        last = other.last;
+        freeCount = other.freeCount;
+        size = other.size;
+    } // end method copyFrom
+
+    // handle of the spot in slot
+    public int handle(int slot) {
+        return ((generation[slot] & GENERATION_MASK) << SLOT_BITS) | slot;
+    } // end method handle
+
+    // slot of the spot with handle, or NONE if it is no longer in play
+    public int slot(int handle) {
+        if (handle == NONE)
+            return NONE;
+
+        int slot = handle & SLOT_MASK;
+        if (slot >= number.length || state[slot] == FREE ||
+                handle(slot) != handle)
+            return NONE;
+
+        return slot;
+    } // end method slot
+
+    // whether the spot with handle is still in play
+    public boolean contains(int handle) {
+        return slot(handle) != NONE;
+    } // end method contains
+
+    // number of spots in play
+    public int size() {
+        return size;
+    } // end method size
+
+    // number of slots; slot indices are below this
+    public int capacity() {
+        return number.length;
+    } // end method capacity
+
+    // bottom spot's slot, or NONE if there are no spots
+    public int first() {
+        return first;
+    } // end method first
+
+    // top spot's slot, or NONE if there are no spots
+    public int last() {
+        return last;
+    } // end method last
+
+    // slot drawn just above slot, or NONE
+    public int next(int slot) {
+        return next[slot];
+    } // end method next
+
+    // slot drawn just below slot, or NONE
+    public int previous(int slot) {
+        return previous[slot];
+    } // end method previous
+
+    public int getNumber(int slot) {
+        return number[slot];
+    } // end method getNumber
+
+    public float getStartX(int slot) {
+        return startX[slot];
+    } // end method getStartX
+
+    public float getStartY(int slot) {
+        return startY[slot];
+    } // end method getStartY
+
+    public float getEndX(int slot) {
+        return endX[slot];
+    } // end method getEndX
+
+    public float getEndY(int slot) {
+        return endY[slot];
+    } // end method getEndY
+
+    public float getEndScale() {
+        return endScale;
+    } // end method getEndScale
+
+    public long getStartTime(int slot) {
+        return startTime[slot];
+    } // end method getStartTime
+
+    public int getDuration(int slot) {
+        return duration[slot];
+    } // end method getDuration
+
+    // whether the spot stopped moving without being touched; it stays in
+    // play at its end position until it is touched
+    public boolean isMissed(int slot) {
+        return state[slot] == STOPPED;
+    } // end method isMissed
+
+    // raw fraction of slot's animation completed at time now, from 0 to 1
+    public float fraction(int slot, long now) {
+        long elapsed = now - startTime[slot];
+        if (elapsed <= 0)
+            return 0f;
+        if (elapsed >= duration[slot])
+            return 1f;
+        return (float) elapsed / duration[slot];
+    } // end method fraction
+
+    // accelerate/decelerate easing, the default for View.animate()
+    public static float interpolate(float fraction) {
+        return (float) (Math.cos((fraction + 1) * Math.PI) / 2.0) + 0.5f;
+    } // end method interpolate
+
+    // eased progress of slot along its trajectory at time now, from 0 to 1
+    public float progress(int slot, long now) {
+        return interpolate(fraction(slot, now));
+    } // end method progress
+
+    // left edge of slot at eased progress t
+    public float x(int slot, float t) {
+        return startX[slot] + (endX[slot] - startX[slot]) * t;
+    } // end method x
+
+    // top edge of slot at eased progress t
+    public float y(int slot, float t) {
+        return startY[slot] + (endY[slot] - startY[slot]) * t;
+    } // end method y
+
+    // scale about a spot's center at eased progress t
+    public float scale(float t) {
+        return 1f + (endScale - 1f) * t;
+    } // end method scale
+} // end class SpotStore
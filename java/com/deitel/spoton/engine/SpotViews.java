@@ -0,0 +1,162 @@
+// SpotViews.java
+// Keeps one view per spot in play and recycles them through a bounded pool
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+// SpotOnView's bookkeeping for spots drawn as one child view each, kept
+// free of Android so it can be tested on a JVM. The view showing each
+// SpotStore slot is found by the slot, as handles are; a view leaving play
+// goes back to a pool of at most capacity idle views and is dropped once
+// the pool is full. Which shown spots are still animating is tracked per
+// slot, replacing a queue of running animators: a spot stops animating
+// when it is missed, and its animation is cancelled when it is hidden. The
+// Host does the drawing; nothing here allocates once the table has grown
+// to the store's capacity and the pool has filled.
+public final class SpotViews<V> {
+    // the UI's side: creates, shows and hides the views themselves
+    public interface Host<V> {
+        // a new view for a spot; called only when the pool is empty
+        V create();
+
+        // adds view to the screen showing the spot in slot of spots where
+        // it is at time now, and animates it along the rest of its
+        // trajectory; returns whether an animation was started
+        boolean show(V view, SpotStore spots, int slot, long now);
+
+        // removes view from the screen and cancels its animation, leaving
+        // it ready to show another spot
+        void hide(V view);
+    } // end interface Host
+
+    private final Host<V> host;
+    private Object[] views; // view showing each slot, or null
+    private boolean[] animating; // whether each slot's view is animating
+    private final Object[] pool; // views waiting to be reused
+    private int idle; // number of views in pool
+    private int shown; // number of views on the screen
+    private int animations; // number of them animating
+
+    // statistics for sizing the pool
+    private int hits; // views taken from the pool
+    private int misses; // views created because the pool was empty
+    private int discards; // views dropped because the pool was full
+
+    // constructs a table for slots slots whose pool holds at most capacity
+    // idle views
+    public SpotViews(Host<V> host, int slots, int capacity) {
+        this.host = host;
+        views = new Object[slots];
+        animating = new boolean[slots];
+        pool = new Object[capacity];
+    } // end SpotViews constructor
+
+    // shows the spot in slot of spots where it is at time now; throws
+    // IllegalStateException if the slot already has a view
+    public void show(SpotStore spots, int slot, long now) {
+        if (views.length < spots.capacity()) { // the store grew
+            views = Arrays.copyOf(views, spots.capacity());
+            animating = Arrays.copyOf(animating, spots.capacity());
+        } // end if
+        if (views[slot] != null)
+            throw new IllegalStateException("Slot " + slot + " has a view");
+
+        V view = obtain();
+        views[slot] = view;
+        ++shown;
+        if (host.show(view, spots, slot, now)) {
+            animating[slot] = true;
+            ++animations;
+        } // end if
+    } // end method show
+
+    // notes that the spot in slot stopped where it was missed; its view
+    // stays on the screen
+    public void missed(int slot) {
+        if (slot < animating.length && animating[slot]) {
+            animating[slot] = false;
+            --animations;
+        } // end if
+    } // end method missed
+
+    // hides the view showing slot and returns it to the pool; throws
+    // IllegalStateException if the slot has none
+    public void hide(int slot) {
+        V view = view(slot);
+        if (view == null)
+            throw new IllegalStateException("Slot " + slot + " has no view");
+
+        views[slot] = null;
+        --shown;
+        missed(slot); // hiding cancels the animation
+        host.hide(view);
+        if (idle < pool.length)
+            pool[idle++] = view;
+        else
+            ++discards; // let the garbage collector have it
+    } // end method hide
+
+    // hides every view
+    public void hideAll() {
+        for (int slot = 0; slot < views.length && shown > 0; ++slot)
+            if (views[slot] != null)
+                hide(slot);
+    } // end method hideAll
+
+    // an idle view, created only if the pool is empty
+    @SuppressWarnings("unchecked")
+    private V obtain() {
+        if (idle > 0) {
+            ++hits;
+            V view = (V) pool[--idle];
+            pool[idle] = null;
+            return view;
+        } // end if
+
+        ++misses;
+        return host.create();
+    } // end method obtain
+
+    // the view showing slot, or null if there is none
+    @SuppressWarnings("unchecked")
+    public V view(int slot) {
+        return slot < views.length ? (V) views[slot] : null;
+    } // end method view
+
+    // number of views on the screen
+    public int getShownCount() {
+        return shown;
+    } // end method getShownCount
+
+    // number of views on the screen still animating
+    public int getAnimationCount() {
+        return animations;
+    } // end method getAnimationCount
+
+    // number of views taken from the pool
+    public int getHits() {
+        return hits;
+    } // end method getHits
+
+    // number of views created because the pool was empty
+    public int getMisses() {
+        return misses;
+    } // end method getMisses
+
+    // number of hidden views dropped because the pool was full
+    public int getDiscards() {
+        return discards;
+    } // end method getDiscards
+
+    // number of views waiting in the pool
+    public int getIdleCount() {
+        return idle;
+    } // end method getIdleCount
+
+    @Override
+    public String toString() {
+        return "SpotViews[shown=" + shown + ", animating=" + animations +
+                ", hits=" + hits + ", misses=" + misses + ", discards=" +
+                discards + ", idle=" + idle + "]";
+    } // end method toString
+} // end class SpotViews
@@ -0,0 +1,121 @@
+// SpscRing.java
+// Lock-free queue of fixed-size int records from one thread to another
+package com.deitel.spoton.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Exactly one producer thread calls claim and publish, and exactly one
+// consumer thread calls peek and release; the producer may only change
+// hands while the ring is not in use. A record is width ints of data()
+// starting at the offset claim or peek returns, plus the System.nanoTime
+// at which it was published. Publishing is an ordered store of the tail
+// and consuming an ordered store of the head, so neither side locks,
+// waits or allocates; each side rereads the other's index only when its
+// cached copy says the ring is full or empty.
+public final class SpscRing {
+    private final int width; // ints per record
+    private final int capacity; // records, a power of two
+    private final int mask;
+    private final int[] data;
+    private final long[] stamps; // publish time of each record
+
+    private final AtomicLong tail = new AtomicLong(); // next to publish
+    private final AtomicLong head = new AtomicLong(); // next to consume
+
+    // producer's state
+    private long cachedHead; // head as last read; at most the real one
+    private int maxDepth; // most records queued at once, or a bit more
+    private long fullCount; // claims refused because the ring was full
+
+    // consumer's state
+    private long cachedTail; // tail as last read; at most the real one
+
+    // constructs a ring of width-int records with room for at least
+    // capacity of them
+    public SpscRing(int width, int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.width = width;
+        this.capacity = size;
+        mask = size - 1;
+        data = new int[size * width];
+        stamps = new long[size];
+    } // end SpscRing constructor
+
+    // the records' storage
+    public int[] data() {
+        return data;
+    } // end method data
+
+    // producer: offset in data() of the record to fill in, or -1 if the
+    // ring is full; the record is not visible until publish
+    public int claim() {
+        long next = tail.get();
+        if (next - cachedHead == capacity) {
+            cachedHead = head.get();
+            if (next - cachedHead == capacity) {
+                ++fullCount;
+                return -1;
+            } // end if
+        } // end if
+        return (int) (next & mask) * width;
+    } // end method claim
+
+    // producer: makes the claimed record visible to the consumer
+    public void publish() {
+        long next = tail.get();
+        stamps[(int) (next & mask)] = System.nanoTime();
+        int depth = (int) (next + 1 - cachedHead);
+        if (depth > maxDepth)
+            maxDepth = depth;
+        tail.lazySet(next + 1); // ordered after the record's contents
+    } // end method publish
+
+    // consumer: offset in data() of the oldest record, or -1 if the ring
+    // is empty
+    public int peek() {
+        long next = head.get();
+        if (next == cachedTail) {
+            cachedTail = tail.get();
+            if (next == cachedTail)
+                return -1;
+        } // end if
+        return (int) (next & mask) * width;
+    } // end method peek
+
+    // consumer: System.nanoTime at which the oldest record was published
+    public long stamp() {
+        return stamps[(int) (head.get() & mask)];
+    } // end method stamp
+
+    // consumer: frees the oldest record for the producer
+    public void release() {
+        head.lazySet(head.get() + 1); // ordered after reading the record
+    } // end method release
+
+    // records published and not yet released; may be out of date by the
+    // time it returns when called from neither side
+    public int size() {
+        return (int) (tail.get() - head.get());
+    } // end method size
+
+    // number of records published since the ring was constructed
+    public long getPublishedCount() {
+        return tail.get();
+    } // end method getPublishedCount
+
+    public int capacity() {
+        return capacity;
+    } // end method capacity
+
+    // producer: most records that were queued at once; counted against
+    // the producer's cached head, so it may overstate by what the consumer
+    // released since the producer last looked
+    public int getMaxDepth() {
+        return maxDepth;
+    } // end method getMaxDepth
+
+    // producer: number of claims refused because the ring was full
+    public long getFullCount() {
+        return fullCount;
+    } // end method getFullCount
+} // end class SpscRing
@@ -0,0 +1,276 @@
+// TimerWheel.java
+// Hashed timing wheel that runs the game's scheduled events in time order
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+
+// Time is divided into ticks of 2^shift milliseconds, and a timer is
+// kept in the bucket for its deadline's tick modulo the number of
+// buckets. Scheduling costs O(1), and polling visits only the buckets for
+// the ticks that have passed, so advancing the clock by one frame costs
+// the same however many timers are pending; a bitmap of the non-empty
+// buckets lets a poll after a long gap skip the empty ones 64 at a time.
+// Timers are kept in parallel
+// arrays, so nothing is allocated once they have grown to the peak count.
+class TimerWheel {
+    static final int NONE = -1; // no timer
+
+    private final int shift; // log2 of the milliseconds per tick
+    private final int mask; // bucket count - 1; the count is a power of 2
+    private final int[] buckets; // first timer in each bucket, or NONE
+    private final long[] occupied; // bit b is set if bucket b is not empty
+
+    // per-timer data, linked into a bucket or onto the free list by next
+    private long[] deadline; // when the timer fires, in game milliseconds
+    private int[] kind; // what the timer does, chosen by the caller
+    private int[] data; // the caller's argument for the timer
+    private int[] next; // next timer in the same bucket or free list
+    private int free = NONE; // first unused timer
+    private int size; // number of pending timers
+
+    private long cursor; // earliest tick that may still have due timers
+
+    // the timer returned by the last successful poll
+    private long firedDeadline;
+    private int firedKind;
+    private int firedData;
+
+    // lateness statistics: how long after its deadline each timer fired
+    private int firedCount;
+    private long totalLateness; // in milliseconds
+    private long maxLateness; // in milliseconds
+
+    // constructs a wheel of bucketCount buckets, each covering resolution
+    // ms, with room for capacity timers; both counts are rounded up to a
+    // power of 2
+    TimerWheel(int resolution, int bucketCount, int capacity) {
+        shift = (resolution <= 1) ? 0 :
+                32 - Integer.numberOfLeadingZeros(resolution - 1);
+        int count = Integer.highestOneBit(Math.max(1, bucketCount - 1)) << 1;
+        mask = count - 1;
+        buckets = new int[count];
+        Arrays.fill(buckets, NONE);
+        occupied = new long[(count + 63) / 64];
+        allocate(0, Math.max(1, capacity));
+        clear(0);
+    } // end TimerWheel constructor
+
+    // grows the timer arrays from oldCapacity to capacity timers
+    private void allocate(int oldCapacity, int capacity) {
+        deadline = (deadline == null) ? new long[capacity] :
+                Arrays.copyOf(deadline, capacity);
+        kind = (kind == null) ? new int[capacity] :
+                Arrays.copyOf(kind, capacity);
+        data = (data == null) ? new int[capacity] :
+                Arrays.copyOf(data, capacity);
+        next = (next == null) ? new int[capacity] :
+                Arrays.copyOf(next, capacity);
+
+        for (int timer = capacity - 1; timer >= oldCapacity; --timer) {
+            next[timer] = free;
+            free = timer;
+        } // end for
+    } // end method allocate
+
+    // cancels every timer and restarts the wheel at time now
+    void clear(long now) {
+        for (int word = 0; word < occupied.length; ++word) {
+            for (long bits = occupied[word]; bits != 0; bits &= bits - 1)
+                buckets[(word << 6) + Long.numberOfTrailingZeros(bits)] = NONE;
+            occupied[word] = 0;
+        } // end for
+        free = NONE;
+        for (int timer = next.length - 1; timer >= 0; --timer) {
+            next[timer] = free;
+            free = timer;
+        } // end for
+
+        size = 0;
+        cursor = tick(now);
+        firedCount = 0;
+        totalLateness = 0;
+        maxLateness = 0;
+    } // end method clear
+
+    // tick containing time
+    private long tick(long time) {
+        return time >> shift;
+    } // end method tick
+
+    // schedules a timer of kind with argument value to fire at time when;
+    // a time already passed fires at the next poll
+    void schedule(long when, int timerKind, int value) {
+        if (free == NONE)
+            allocate(next.length, 2 * next.length);
+
+        int timer = free;
+        free = next[timer];
+        deadline[timer] = when;
+        kind[timer] = timerKind;
+        data[timer] = value;
+
+        // a late timer goes in the current bucket so it is not skipped
+        int bucket = (int) (Math.max(tick(when), cursor) & mask);
+        next[timer] = buckets[bucket];
+        buckets[bucket] = timer;
+        occupied[bucket >>> 6] |= 1L << bucket;
+        ++size;
+    } // end method schedule
+
+    // removes the earliest timer due by time now, and returns true after
+    // storing it for getFiredDeadline, getFiredKind and getFiredData;
+    // returns false if no timer is due. Timers due at the same time fire
+    // in increasing order of kind
+    boolean poll(long now) {
+        long nowTick = tick(now);
+        if (size == 0) {
+            cursor = Math.max(cursor, nowTick); // skip the empty buckets
+            return false;
+        } // end if
+
+        while (cursor <= nowTick) {
+            // jump to the next bucket holding timers, but not past now
+            int bucket = (int) (cursor & mask);
+            cursor = Math.min(nowTick, cursor + emptyBuckets(bucket));
+            bucket = (int) (cursor & mask);
+
+            // find the bucket's earliest due timer; timers for later
+            // turns of the wheel share the bucket but are not due yet
+            int best = NONE;
+            int bestPrevious = NONE;
+            for (int previous = NONE, timer = buckets[bucket];
+                    timer != NONE; previous = timer, timer = next[timer]) {
+                if (deadline[timer] <= now &&
+                        tick(deadline[timer]) <= cursor &&
+                        (best == NONE || earlier(timer, best))) {
+                    best = timer;
+                    bestPrevious = previous;
+                } // end if
+            } // end for
+
+            if (best != NONE) {
+                fire(best, bestPrevious, bucket, now);
+                return true;
+            } // end if
+
+            if (cursor == nowTick)
+                return false; // the rest of this tick is still to come
+            ++cursor;
+        } // end while
+
+        return false;
+    } // end method poll
+
+    // whether timer fires before other
+    private boolean earlier(int timer, int other) {
+        if (deadline[timer] != deadline[other])
+            return deadline[timer] < deadline[other];
+        return kind[timer] < kind[other];
+    } // end method earlier
+
+    // unlinks timer from bucket, records it as fired at time now and
+    // frees it
+    private void fire(int timer, int previous, int bucket, long now) {
+        if (previous == NONE)
+            buckets[bucket] = next[timer];
+        else
+            next[previous] = next[timer];
+        if (buckets[bucket] == NONE)
+            occupied[bucket >>> 6] &= ~(1L << bucket);
+
+        firedDeadline = deadline[timer];
+        firedKind = kind[timer];
+        firedData = data[timer];
+
+        long lateness = now - firedDeadline;
+        ++firedCount;
+        totalLateness += lateness;
+        maxLateness = Math.max(maxLateness, lateness);
+
+        next[timer] = free;
+        free = timer;
+        --size;
+    } // end method fire
+
+    // number of empty buckets from bucket to the next one holding timers,
+    // wrapping around the wheel; called only while some bucket holds one
+    private int emptyBuckets(int bucket) {
+        int words = occupied.length;
+        int word = bucket >>> 6;
+        long bits = occupied[word] & (-1L << bucket); // bucket and above
+
+        for (int scanned = 0; scanned <= words; ++scanned) {
+            if (bits != 0) {
+                int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return (found - bucket) & mask;
+            } // end if
+
+            word = (word + 1) % words;
+            bits = occupied[word];
+        } // end for
+
+        return 0; // no timers; not reached while size > 0
+    } // end method emptyBuckets
+
+    // deadline of the earliest pending timer, or Long.MAX_VALUE if there
+    // are none
+    long nextDeadline() {
+        if (size == 0)
+            return Long.MAX_VALUE;
+
+        // the first bucket holding a timer for its own tick has the
+        // earliest deadline; a full turn without one means every timer
+        // is more than a turn away
+        long earliest = Long.MAX_VALUE;
+        for (long t = cursor; t <= cursor + mask; ++t) {
+            for (int timer = buckets[(int) (t & mask)]; timer != NONE;
+                    timer = next[timer]) {
+                if (tick(deadline[timer]) <= t)
+                    earliest = Math.min(earliest, deadline[timer]);
+            } // end for
+
+            if (earliest != Long.MAX_VALUE)
+                return earliest;
+        } // end for
+
+        for (int bucket = 0; bucket <= mask; ++bucket)
+            for (int timer = buckets[bucket]; timer != NONE;
+                    timer = next[timer])
+                earliest = Math.min(earliest, deadline[timer]);
+
+        return earliest;
+    } // end method nextDeadline
+
+    // number of pending timers
+    int size() {
+        return size;
+    } // end method size
+
+    long getFiredDeadline() {
+        return firedDeadline;
+    } // end method getFiredDeadline
+
+    int getFiredKind() {
+        return firedKind;
+    } // end method getFiredKind
+
+    int getFiredData() {
+        return firedData;
+    } // end method getFiredData
+
+    // number of timers fired since the last clear
+    int getFiredCount() {
+        return firedCount;
+    } // end method getFiredCount
+
+    // total ms between the fired timers' deadlines and the polls that ran
+    // them
+    long getTotalLateness() {
+        return totalLateness;
+    } // end method getTotalLateness
+
+    // largest ms between a fired timer's deadline and the poll that ran it
+    long getMaxLateness() {
+        return maxLateness;
+    } // end method getMaxLateness
+} // end class TimerWheel
@@ -0,0 +1,420 @@
+// TrajectoryPlanner.java
+// Plans a level's spot trajectories so that spots do not overlap
+package com.deitel.spoton.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// A level's spots are planned together when the level starts, so adding
+// one later only copies its trajectory. Each spot is tried at up to
+// MAX_ATTEMPTS random start and end points, and the first that overlaps
+// nothing is used; a candidate is checked against the spots in play and
+// those already planned, sampled every SAMPLE_INTERVAL ms while they move
+// and standing still where they stop, and rejected at its first overlap.
+// Samples are kept in a grid of cells twice a spot across, one per time
+// step for moving samples and one for stopped spots, so a check looks at
+// the four cells nearest each of the candidate's samples however many
+// spots there are. Where every candidate overlaps something, they are
+// counted again in full and the one overlapping fewest samples is used.
+public final class TrajectoryPlanner {
+    public static final int SAMPLE_INTERVAL = 500; // ms between samples
+    public static final int MAX_ATTEMPTS = 12; // candidates per spot
+
+    private static final int MAX_STEPS = 256; // later ones share cells
+    private static final int INITIAL_SAMPLES = 1024;
+
+    private final int diameter; // of a spot at full size
+    private final float cellSize; // twice diameter, the widest overlap
+    private final float endScale; // a spot's scale where it stops
+
+    // the plan: trajectory i is for the (i + 1)th spot added
+    private float[] startX = new float[0];
+    private float[] startY = new float[0];
+    private float[] endX = new float[0];
+    private float[] endY = new float[0];
+    private int count;
+    private int overlaps; // planned spots that could not avoid others
+
+    // chains of samples per cell, columns by rows including a border of
+    // empty cells around the field; moving ones per time step, from 0 to
+    // lastStep, with step s in the cells of s % steps. Heads are valid
+    // only where their stamp is current
+    private int columns;
+    private int rows;
+    private int lastStep;
+    private int steps; // time steps with cells of their own
+    private int[] movingHeads = new int[0];
+    private int[] movingStamps = new int[0];
+    private int[] stoppedHeads = new int[0];
+    private int[] stoppedStamps = new int[0];
+    private int stamp;
+
+    // samples: center, radius, and the time step it is at (moving) or
+    // stands still from (stopped)
+    private int[] sampleNext = new int[INITIAL_SAMPLES];
+    private float[] sampleX = new float[INITIAL_SAMPLES];
+    private float[] sampleY = new float[INITIAL_SAMPLES];
+    private float[] sampleRadius = new float[INITIAL_SAMPLES];
+    private int[] sampleStep = new int[INITIAL_SAMPLES];
+    private int sampleCount;
+    private int lastMovingStep; // latest step of any moving sample
+    private int firstStoppedStep; // earliest step any spot stands still
+
+    // the start and end points tried for the spot being planned
+    private final float[] attemptX = new float[MAX_ATTEMPTS];
+    private final float[] attemptY = new float[MAX_ATTEMPTS];
+    private final float[] attemptX2 = new float[MAX_ATTEMPTS];
+    private final float[] attemptY2 = new float[MAX_ATTEMPTS];
+
+    // eased progress at a trajectory's samples, which depends only on its
+    // duration and how far its first sample is after its spawn; spots are
+    // usually added a whole number of steps apart, so it is reused
+    private float[] eased = new float[0];
+    private int easedSamples = -1;
+    private int easedDuration;
+    private long easedOffset;
+
+    // constructs a planner for spots diameter across at full size that
+    // shrink to endScale along their trajectories
+    public TrajectoryPlanner(int diameter, float endScale) {
+        this.diameter = diameter;
+        this.cellSize = 2f * diameter;
+        this.endScale = endScale;
+    } // end TrajectoryPlanner constructor
+
+    // plans count spots added every delay ms from firstSpawn, each moving
+    // for duration ms, with top-left corners inside a field of width by
+    // height less a spot; avoids spots and earlier planned ones
+    public void plan(Random random, SpotStore spots, long firstSpawn,
+            int count, int delay, int duration, int width, int height) {
+        reserve(count);
+        this.count = count;
+        overlaps = 0;
+        sampleCount = 0;
+        lastMovingStep = -1;
+        firstStoppedStep = Integer.MAX_VALUE;
+
+        // time steps are counted from firstSpawn; the plan needs to look
+        // no further than when its last spot stops
+        lastStep = step((long) (count - 1) * delay + duration);
+        columns = (int) (width / cellSize) + 3;
+        rows = (int) (height / cellSize) + 3;
+        steps = Math.max(1, Math.min(lastStep + 1, MAX_STEPS));
+        int cells = columns * rows;
+        if (movingHeads.length < cells * steps) {
+            movingHeads = new int[cells * steps];
+            movingStamps = new int[cells * steps];
+        } // end if
+        if (stoppedHeads.length < cells) {
+            stoppedHeads = new int[cells];
+            stoppedStamps = new int[cells];
+        } // end if
+        if (++stamp == 0) { // every head is invalid again after wrapping
+            Arrays.fill(movingStamps, 0);
+            Arrays.fill(stoppedStamps, 0);
+            stamp = 1;
+        } // end if
+
+        int rangeX = Math.max(1, width - diameter);
+        int rangeY = Math.max(1, height - diameter);
+
+        for (int slot = spots.first(); slot != SpotStore.NONE;
+                slot = spots.next(slot))
+            addSpot(spots, slot, firstSpawn);
+
+        for (int i = 0; i < count; ++i) {
+            long spawn = (long) i * delay;
+            int chosen = -1;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS && chosen < 0;
+                    ++attempt) {
+                attemptX[attempt] = random.nextInt(rangeX);
+                attemptY[attempt] = random.nextInt(rangeY);
+                attemptX2[attempt] = random.nextInt(rangeX);
+                attemptY2[attempt] = random.nextInt(rangeY);
+                if (collisions(attempt, spawn, duration, 1) == 0)
+                    chosen = attempt;
+            } // end for
+
+            if (chosen < 0) { // every attempt overlaps something
+                int best = Integer.MAX_VALUE;
+                for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+                    int collisions = collisions(attempt, spawn, duration,
+                            best);
+                    if (collisions < best) {
+                        best = collisions;
+                        chosen = attempt;
+                    } // end if
+                } // end for
+                ++overlaps;
+            } // end if
+
+            startX[i] = attemptX[chosen];
+            startY[i] = attemptY[chosen];
+            endX[i] = attemptX2[chosen];
+            endY[i] = attemptY2[chosen];
+            addTrajectory(startX[i], startY[i], endX[i], endY[i], spawn,
+                    duration);
+        } // end for
+    } // end method plan
+
+    // the first time step at or after ms from the plan's first spawn
+    private static int step(long ms) {
+        return (int) ((ms + SAMPLE_INTERVAL - 1) / SAMPLE_INTERVAL);
+    } // end method step
+
+    // adds the samples of the spot in slot, which is in play at firstSpawn
+    private void addSpot(SpotStore spots, int slot, long firstSpawn) {
+        float half = diameter / 2f;
+        long spawn = spots.startTime[slot] - firstSpawn;
+        int stop = spots.isMissed(slot) ? 0 :
+                Math.max(0, step(spawn + spots.duration[slot]));
+        for (int step = 0; step < stop && step <= lastStep; ++step) {
+            float t = spots.progress(slot, firstSpawn +
+                    (long) step * SAMPLE_INTERVAL);
+            addMoving(step, spots.x(slot, t) + half,
+                    spots.y(slot, t) + half, half * spots.scale(t));
+        } // end for
+        addStopped(stop, spots.endX[slot] + half, spots.endY[slot] + half,
+                half * spots.getEndScale());
+    } // end method addSpot
+
+    // adds the samples of a planned trajectory spawned at spawn
+    private void addTrajectory(float x, float y, float x2, float y2,
+            long spawn, int duration) {
+        int samples = sample(spawn, duration);
+        int first = step(spawn);
+        float half = diameter / 2f;
+        for (int i = 0; i < samples; ++i) {
+            float t = eased[i];
+            addMoving(first + i, x + (x2 - x) * t + half,
+                    y + (y2 - y) * t + half,
+                    half * (1f + (endScale - 1f) * t));
+        } // end for
+        addStopped(first + samples, x2 + half, y2 + half, half * endScale);
+    } // end method addTrajectory
+
+    // number of samples of a trajectory spawned at spawn, from its first
+    // step until before the step it stops at, with their eased progress in
+    // eased
+    private int sample(long spawn, int duration) {
+        int first = step(spawn);
+        int samples = step(spawn + duration) - first;
+        long offset = (long) first * SAMPLE_INTERVAL - spawn;
+        if (samples != easedSamples || duration != easedDuration ||
+                offset != easedOffset) {
+            if (eased.length < samples)
+                eased = new float[samples];
+            for (int i = 0; i < samples; ++i)
+                eased[i] = SpotStore.interpolate(
+                        (float) (offset + (long) i * SAMPLE_INTERVAL) /
+                        duration);
+            easedSamples = samples;
+            easedDuration = duration;
+            easedOffset = offset;
+        } // end if
+        return samples;
+    } // end method sample
+
+    // number of samples the trajectory of an attempt overlaps, counting
+    // no further than limit
+    private int collisions(int attempt, long spawn, int duration,
+            int limit) {
+        float x1 = attemptX[attempt];
+        float y1 = attemptY[attempt];
+        float x2 = attemptX2[attempt];
+        float y2 = attemptY2[attempt];
+        int samples = sample(spawn, duration);
+        int first = step(spawn);
+        int cells = columns * rows;
+        float half = diameter / 2f;
+        int found = 0;
+
+        // while it moves, against samples at the same step and spots
+        // already standing still
+        for (int i = 0; i < samples && found < limit; ++i) {
+            int step = first + i;
+            float t = eased[i];
+            float x = x1 + (x2 - x1) * t + half;
+            float y = y1 + (y2 - y1) * t + half;
+            float radius = half * (1f + (endScale - 1f) * t);
+            int quad = quad(x, y);
+            found += near(movingHeads, movingStamps, step % steps * cells,
+                    step, quad, x, y, radius);
+            if (step >= firstStoppedStep)
+                found += near(stoppedHeads, stoppedStamps, 0, -1 - step,
+                        quad, x, y, radius);
+        } // end for
+
+        // where it stops, against samples at every later step that has any
+        // and every spot standing still
+        float centerX = x2 + half;
+        float centerY = y2 + half;
+        float radius = half * endScale;
+        int quad = quad(centerX, centerY);
+        int last = Math.min(lastStep, lastMovingStep);
+        for (int step = first + samples; step <= last && found < limit;
+                ++step)
+            found += near(movingHeads, movingStamps, step % steps * cells,
+                    step, quad, centerX, centerY, radius);
+        if (found < limit)
+            found += near(stoppedHeads, stoppedStamps, 0, Integer.MIN_VALUE,
+                    quad, centerX, centerY, radius);
+        return found;
+    } // end method collisions
+
+    // the first of the 2 by 2 cells nearest (x, y): the cell containing it
+    // and its neighbours on the sides (x, y) is nearer. Reach is at most a
+    // spot across, half a cell, so any sample in reach is in those cells
+    private int quad(float x, float y) {
+        float columnAt = x / cellSize;
+        float rowAt = y / cellSize;
+        int column = Math.min(columns - 2, Math.max(1, 1 + (int) columnAt));
+        int row = Math.min(rows - 2, Math.max(1, 1 + (int) rowAt));
+        if (columnAt - (column - 1) < 0.5f)
+            --column;
+        if (rowAt - (row - 1) < 0.5f)
+            --row;
+        return row * columns + column;
+    } // end method quad
+
+    // number of samples in the 2 by 2 cells from quad, offset by base,
+    // that overlap a circle of radius at (x, y); moving samples are those
+    // at step key, while for key -1 - step they are the spots standing
+    // still by step
+    private int near(int[] heads, int[] stamps, int base, int key, int quad,
+            float x, float y, float radius) {
+        int stoppedBy = -1 - key;
+        int found = 0;
+        for (int k = 0; k < 4; ++k) {
+            int cell = base + quad + (k & 1) + (k >> 1) * columns;
+            if (stamps[cell] != stamp)
+                continue;
+
+            for (int s = heads[cell]; s >= 0; s = sampleNext[s]) {
+                if (key >= 0 ? sampleStep[s] != key :
+                        sampleStep[s] > stoppedBy)
+                    continue; // another step, or still moving then
+
+                float dx = sampleX[s] - x;
+                float dy = sampleY[s] - y;
+                float reach = sampleRadius[s] + radius;
+                if (dx * dx + dy * dy < reach * reach)
+                    ++found;
+            } // end for
+        } // end for
+        return found;
+    } // end method near
+
+    // adds a sample centered at (x, y) at step to the moving samples
+    private void addMoving(int step, float x, float y, float radius) {
+        if (step > lastMovingStep)
+            lastMovingStep = step;
+        addSample(movingHeads, movingStamps,
+                step % steps * rows * columns + cell(x, y), step, x, y,
+                radius);
+    } // end method addMoving
+
+    // adds a sample centered at (x, y), standing still from step on
+    private void addStopped(int step, float x, float y, float radius) {
+        if (step < firstStoppedStep)
+            firstStoppedStep = step;
+        addSample(stoppedHeads, stoppedStamps, cell(x, y), step, x, y,
+                radius);
+    } // end method addStopped
+
+    // the cell containing (x, y), clamped to the field's
+    private int cell(float x, float y) {
+        int column =
+                Math.min(columns - 2, Math.max(1, 1 + (int) (x / cellSize)));
+        int row = Math.min(rows - 2, Math.max(1, 1 + (int) (y / cellSize)));
+        return row * columns + column;
+    } // end method cell
+
+    // adds a sample to the chain of cell in a table
+    private void addSample(int[] heads, int[] stamps, int cell, int step,
+            float x, float y, float radius) {
+        if (sampleCount == sampleNext.length) {
+            int capacity = 2 * sampleCount;
+            sampleNext = Arrays.copyOf(sampleNext, capacity);
+            sampleX = Arrays.copyOf(sampleX, capacity);
+            sampleY = Arrays.copyOf(sampleY, capacity);
+            sampleRadius = Arrays.copyOf(sampleRadius, capacity);
+            sampleStep = Arrays.copyOf(sampleStep, capacity);
+        } // end if
+
+        if (stamps[cell] != stamp) {
+            stamps[cell] = stamp;
+            heads[cell] = -1;
+        } // end if
+
+        int s = sampleCount++;
+        sampleX[s] = x;
+        sampleY[s] = y;
+        sampleRadius[s] = radius;
+        sampleStep[s] = step;
+        sampleNext[s] = heads[cell];
+        heads[cell] = s;
+    } // end method addSample
+
+    // makes room for count trajectories
+    private void reserve(int count) {
+        if (startX.length < count) {
+            startX = new float[count];
+            startY = new float[count];
+            endX = new float[count];
+            endY = new float[count];
+        } // end if
+    } // end method reserve
+
+    // replaces the plan with count trajectories set by set
+    void restore(int count) {
+        reserve(count);
+        this.count = count;
+        overlaps = 0;
+    } // end method restore
+
+    // sets trajectory i, for restoring a saved plan
+    void set(int i, float x, float y, float x2, float y2) {
+        startX[i] = x;
+        startY[i] = y;
+        endX[i] = x2;
+        endY[i] = y2;
+    } // end method set
+
+    // scales the plan's positions, as the field's size changed
+    void scale(float scaleX, float scaleY) {
+        for (int i = 0; i < count; ++i) {
+            startX[i] *= scaleX;
+            startY[i] *= scaleY;
+            endX[i] *= scaleX;
+            endY[i] *= scaleY;
+        } // end for
+    } // end method scale
+
+    // number of trajectories planned
+    public int size() {
+        return count;
+    } // end method size
+
+    public float getStartX(int i) {
+        return startX[i];
+    } // end method getStartX
+
+    public float getStartY(int i) {
+        return startY[i];
+    } // end method getStartY
+
+    public float getEndX(int i) {
+        return endX[i];
+    } // end method getEndX
+
+    public float getEndY(int i) {
+        return endY[i];
+    } // end method getEndY
+
+    // number of spots in the last plan that overlap another somewhere
+    // because no candidate avoided every other
+    public int getOverlapCount() {
+        return overlaps;
+    } // end method getOverlapCount
+} // end class TrajectoryPlanner
@@ -0,0 +1,341 @@
+// SoundBankPacker.java
+// Converts the game's clips to one PCM format and packs them in a bank
+package com.deitel.spoton;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+// Usage: SoundBankPacker <clip list> <bank file>
+// The clip list names one WAV or MP3 file per line, relative to the list,
+// in sound-ID order; blank lines and lines starting with # are skipped.
+// Every clip is decoded, mixed down to mono and resampled to
+// SoundBankFile's format. The build fails if any clip is empty or silent.
+public class SoundBankPacker {
+    // a clip whose peak is below this is treated as silent
+    private static final int SILENCE_THRESHOLD = 32; // of 32767
+
+    // a clip decoded to mono samples from -1 to 1
+    private static class Clip {
+        final float[] samples;
+        final int sampleRate;
+
+        Clip(float[] samples, int sampleRate) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+        } // end Clip constructor
+    } // end class Clip
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SoundBankPacker <clip list> <bank>");
+            System.exit(2);
+        } // end if
+
+        File list = new File(args[0]).getCanonicalFile();
+        File bank = new File(args[1]).getCanonicalFile();
+        List<String> names = readClipList(list);
+
+        // convert every clip, collecting all problems before failing
+        List<byte[]> clips = new ArrayList<byte[]>();
+        List<String> problems = new ArrayList<String>();
+        for (String name : names) {
+            File file = new File(list.getParentFile(), name);
+            try {
+                short[] pcm = toBankFormat(decode(file));
+                String problem = validate(pcm);
+                if (problem != null)
+                    problems.add(name + ": " + problem);
+                clips.add(toWav(pcm));
+            } // end try
+            catch (IOException | UnsupportedAudioFileException |
+                    JavaLayerException e) {
+                problems.add(name + ": cannot decode (" + e + ")");
+            } // end catch
+        } // end for
+
+        if (!problems.isEmpty()) {
+            for (String problem : problems)
+                System.err.println(problem);
+            System.exit(1);
+        } // end if
+
+        write(bank, clips);
+        System.out.println("Packed " + clips.size() + " clips into " + bank +
+                " (" + bank.length() + " bytes)");
+    } // end method main
+
+    // returns the clip file names listed in list
+    private static List<String> readClipList(File list) throws IOException {
+        List<String> names = new ArrayList<String>();
+        for (String line :
+                Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#"))
+                names.add(line);
+        } // end for
+        return names;
+    } // end method readClipList
+
+    // decodes file, an MP3 or a PCM WAV file
+    private static Clip decode(File file) throws IOException,
+            UnsupportedAudioFileException, JavaLayerException {
+        if (file.length() == 0)
+            return new Clip(new float[0], SoundBankFile.SAMPLE_RATE);
+        if (file.getName().endsWith(".mp3"))
+            return decodeMp3(file);
+        return decodeWav(file);
+    } // end method decode
+
+    // decodes an 8- or 16-bit PCM WAV file
+    private static Clip decodeWav(File file) throws IOException,
+            UnsupportedAudioFileException {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(file)) {
+            AudioFormat format = in.getFormat();
+            int bytes = format.getSampleSizeInBits() / 8;
+            int channels = format.getChannels();
+            boolean signed =
+                    format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED;
+            if ((bytes != 1 && bytes != 2) || (!signed &&
+                    format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED))
+                throw new UnsupportedAudioFileException(
+                        "unsupported WAV format " + format);
+
+            byte[] data = readAll(in);
+            int frames = data.length / (bytes * channels);
+            float[] samples = new float[frames];
+            ByteBuffer buffer = ByteBuffer.wrap(data).order(
+                    format.isBigEndian() ? ByteOrder.BIG_ENDIAN :
+                            ByteOrder.LITTLE_ENDIAN);
+
+            for (int frame = 0; frame < frames; ++frame) {
+                float sum = 0;
+                for (int channel = 0; channel < channels; ++channel) {
+                    if (bytes == 1) {
+                        int value = buffer.get() & 0xff;
+                        sum += (signed ? (byte) value : value - 128) / 128f;
+                    }
+                    else {
+                        short value = buffer.getShort();
+                        sum += (signed ? value : (value & 0xffff) - 32768) /
+                                32768f;
+                    } // end else
+                } // end for
+                samples[frame] = sum / channels;
+            } // end for
+
+            return new Clip(samples, (int) format.getSampleRate());
+        } // end try
+    } // end method decodeWav
+
+    // decodes an MP3 file with JLayer
+    private static Clip decodeMp3(File file) throws IOException,
+            JavaLayerException {
+        try (InputStream in = new BufferedInputStream(
+                Files.newInputStream(file.toPath()))) {
+            Bitstream bitstream = new Bitstream(in); // skips ID3 tags
+            Decoder decoder = new Decoder();
+            FloatList samples = new FloatList();
+            int sampleRate = SoundBankFile.SAMPLE_RATE;
+
+            Header header;
+            while ((header = bitstream.readFrame()) != null) {
+                SampleBuffer output =
+                        (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                short[] buffer = output.getBuffer();
+                int channels = output.getChannelCount();
+                sampleRate = output.getSampleFrequency();
+
+                // the buffer interleaves the channels
+                for (int i = 0; i + channels <= output.getBufferLength();
+                        i += channels) {
+                    float sum = 0;
+                    for (int channel = 0; channel < channels; ++channel)
+                        sum += buffer[i + channel] / 32768f;
+                    samples.add(sum / channels);
+                } // end for
+
+                bitstream.closeFrame();
+            } // end while
+
+            return new Clip(samples.toArray(), sampleRate);
+        } // end try
+    } // end method decodeMp3
+
+    // resamples clip to the bank's rate by linear interpolation and
+    // quantizes it to 16 bits
+    private static short[] toBankFormat(Clip clip) {
+        float[] in = clip.samples;
+        if (in.length == 0)
+            return new short[0];
+
+        double step = (double) clip.sampleRate / SoundBankFile.SAMPLE_RATE;
+        int length = (int) Math.max(1, Math.round(in.length / step));
+        short[] out = new short[length];
+
+        for (int i = 0; i < length; ++i) {
+            double position = i * step;
+            int index = (int) position;
+            float fraction = (float) (position - index);
+            float a = in[Math.min(index, in.length - 1)];
+            float b = in[Math.min(index + 1, in.length - 1)];
+            float value = a + (b - a) * fraction;
+            out[i] = (short) Math.max(-32768,
+                    Math.min(32767, Math.round(value * 32767)));
+        } // end for
+
+        return out;
+    } // end method toBankFormat
+
+    // describes why pcm cannot be packed, or returns null if it can
+    private static String validate(short[] pcm) {
+        if (pcm.length == 0)
+            return "clip is empty";
+
+        int peak = 0;
+        for (short sample : pcm)
+            peak = Math.max(peak, Math.abs(sample));
+        if (peak < SILENCE_THRESHOLD)
+            return "clip is silent (peak " + peak + ")";
+
+        return null;
+    } // end method validate
+
+    // returns pcm as a WAV file in the bank's format
+    private static byte[] toWav(short[] pcm) {
+        int blockAlign = SoundBankFile.CHANNELS *
+                SoundBankFile.BITS_PER_SAMPLE / 8;
+        int dataSize = pcm.length * blockAlign;
+        ByteBuffer wav = ByteBuffer.allocate(
+                SoundBankFile.WAV_HEADER_SIZE + dataSize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        wav.putInt(SoundBankFile.WAV_HEADER_SIZE - 8 + dataSize);
+        wav.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+        wav.putInt(16); // size of the fmt chunk
+        wav.putShort((short) 1); // PCM
+        wav.putShort((short) SoundBankFile.CHANNELS);
+        wav.putInt(SoundBankFile.SAMPLE_RATE);
+        wav.putInt(SoundBankFile.SAMPLE_RATE * blockAlign); // bytes/second
+        wav.putShort((short) blockAlign);
+        wav.putShort((short) SoundBankFile.BITS_PER_SAMPLE);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII));
+        wav.putInt(dataSize);
+        for (short sample : pcm)
+            wav.putShort(sample);
+
+        return wav.array();
+    } // end method toWav
+
+    // writes the header, the index and the aligned clips to bank
+    private static void write(File bank, List<byte[]> clips)
+            throws IOException {
+        int count = clips.size();
+        int[] offsets = new int[count];
+        int offset = SoundBankFile.HEADER_SIZE +
+                count * SoundBankFile.ENTRY_SIZE;
+        for (int i = 0; i < count; ++i) {
+            offset = align(offset);
+            offsets[i] = offset;
+            offset += clips.get(i).length;
+        } // end for
+
+        File parent = bank.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File temporary = File.createTempFile("soundbank", ".tmp", parent);
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(temporary))) { // big-endian
+            out.write(SoundBankFile.MAGIC.getBytes(StandardCharsets.US_ASCII));
+            out.writeInt(SoundBankFile.VERSION);
+            out.writeInt(count);
+            for (int i = 0; i < count; ++i) {
+                out.writeInt(offsets[i]);
+                out.writeInt(clips.get(i).length);
+            } // end for
+
+            for (int i = 0; i < count; ++i) {
+                while (out.size() < offsets[i])
+                    out.write(0); // padding
+                out.write(clips.get(i));
+            } // end for
+        } // end try
+
+        verify(temporary, clips);
+        Files.move(temporary.toPath(), bank.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    } // end method write
+
+    // reads bank back through SoundBankFile, as the app does
+    private static void verify(File bank, List<byte[]> clips)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(bank.toPath()));
+        if (SoundBankFile.getClipCount(buffer) != clips.size())
+            throw new IOException("Wrong clip count in " + bank);
+
+        for (int id = 1; id <= clips.size(); ++id) {
+            int offset = SoundBankFile.getClipOffset(buffer, id);
+            int length = SoundBankFile.getClipLength(buffer, id);
+            if (offset % SoundBankFile.ALIGNMENT != 0 ||
+                    length != clips.get(id - 1).length ||
+                    offset + length > buffer.limit())
+                throw new IOException("Bad index entry " + id + " in " + bank);
+        } // end for
+    } // end method verify
+
+    // offset rounded up to the clip alignment
+    private static int align(int offset) {
+        int mask = SoundBankFile.ALIGNMENT - 1;
+        return (offset + mask) & ~mask;
+    } // end method align
+
+    // every byte remaining in in
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1)
+            out.write(buffer, 0, count);
+        return out.toByteArray();
+    } // end method readAll
+
+    // growable array of floats
+    private static class FloatList {
+        private float[] values = new float[8192];
+        private int size;
+
+        void add(float value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, 2 * size);
+            values[size++] = value;
+        } // end method add
+
+        float[] toArray() {
+            return Arrays.copyOf(values, size);
+        } // end method toArray
+    } // end class FloatList
+} // end class SoundBankPacker